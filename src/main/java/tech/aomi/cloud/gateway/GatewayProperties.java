@@ -4,6 +4,8 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * @author Sean createAt 2021/6/23
  */
@@ -12,4 +14,307 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "gateway")
 public class GatewayProperties {
 
+    /**
+     * 客户端缓存配置
+     */
+    private ClientCache clientCache = new ClientCache();
+
+    /**
+     * 加解密线程池配置
+     */
+    private Crypto crypto = new Crypto();
+
+    /**
+     * 会话配置
+     */
+    private Session session = new Session();
+
+    /**
+     * 传输秘钥解密结果缓存配置
+     */
+    private TrkCache trkCache = new TrkCache();
+
+    /**
+     * 重放攻击防护配置
+     */
+    private Replay replay = new Replay();
+
+    /**
+     * 请求报文准入检查配置
+     */
+    private Admission admission = new Admission();
+
+    /**
+     * 签名验证失败次数限制配置
+     */
+    private SignatureFailure signatureFailure = new SignatureFailure();
+
+    /**
+     * 报文流式处理配置
+     */
+    private Streaming streaming = new Streaming();
+
+    @Getter
+    @Setter
+    public static class Streaming {
+
+        /**
+         * 请求报文流式解析, 不绑定完整的请求报文对象, payload 分段验签、解密
+         */
+        private boolean request = false;
+
+        /**
+         * 响应报文流式写入, payload 分段加密、Base64 编码、计算签名后直接写入 DataBuffer
+         */
+        private boolean response = false;
+
+        /**
+         * 响应流式写入时不绑定后端响应的 payload, 直接加密其原始字节
+         * payload 不再重新序列化, 空白、字段顺序、数字格式与后端响应一致; 仅在请求字符集为 UTF-8 时生效
+         */
+        private boolean rawPayload = false;
+    }
+
+    @Getter
+    @Setter
+    public static class SignatureFailure {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 统计窗口
+         */
+        private Duration window = Duration.ofMinutes(1);
+
+        /**
+         * 窗口内失败次数达到该值后开始限制
+         */
+        private int threshold = 20;
+
+        /**
+         * 限制时间
+         */
+        private Duration coolDown = Duration.ofMinutes(5);
+
+        /**
+         * 最多记录的客户端及IP数量
+         */
+        private long maximumSize = 100000;
+
+        /**
+         * 按来源IP统计的配置
+         */
+        private Ip ip = new Ip();
+
+        @Getter
+        @Setter
+        public static class Ip {
+
+            /**
+             * 是否按来源IP统计, 默认只按客户端ID统计
+             * 经过 ingress、负载均衡转发时连接的来源地址都是代理地址, 一个客户端秘钥配置错误会限制所有客户端, 启用时需要同时配置 trustedProxies
+             */
+            private boolean enabled = false;
+
+            /**
+             * 网关前的可信代理层数
+             * 0 时使用连接的来源地址; 大于 0 时使用 X-Forwarded-For 从右数第 trustedProxies 个地址, 更左侧的地址可以由客户端伪造, 不使用
+             */
+            private int trustedProxies = 0;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+
+        /**
+         * trk、epk、sign 最大长度, 4096 位 RSA 密文 Base64 后为 684
+         */
+        private int maxKeyLength = 1024;
+
+        /**
+         * payload 最大长度
+         */
+        private int maxPayloadLength = 10 * 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Replay {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 请求时间与服务器时间允许的偏差
+         */
+        private Duration skew = Duration.ofMinutes(5);
+
+        /**
+         * 时间窗口分桶数量
+         */
+        private int buckets = 10;
+
+        /**
+         * 最多记录的 randomString 数量, 记录满时不再记录
+         */
+        private long maximumSize = 1000000;
+
+        /**
+         * 每个客户端最多记录的 randomString 数量, 记录满时拒绝该客户端的请求
+         */
+        private long clientMaximumSize = 200000;
+    }
+
+    @Getter
+    @Setter
+    public static class TrkCache {
+
+        /**
+         * 是否启用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 最多缓存的传输秘钥数量
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * 缓存有效期, 客户端连续请求复用 trk 的时间通常很短
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Session {
+
+        /**
+         * 最多保存的会话数量
+         */
+        private long maximumSize = 100000;
+
+        /**
+         * 会话有效期
+         */
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Crypto {
+
+        /**
+         * 线程数, 小于等于0时使用CPU核数
+         */
+        private int threads = 0;
+
+        /**
+         * 等待队列长度, 队列满时直接拒绝请求
+         */
+        private int queueCapacity = 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class ClientCache {
+
+        /**
+         * 最大缓存客户端数量
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * 缓存有效期
+         */
+        private Duration expireAfterWrite = Duration.ofHours(1);
+
+        /**
+         * 写入超过该时间后,再次访问时异步刷新,刷新期间仍返回旧值
+         * 必须小于 expireAfterWrite
+         */
+        private Duration refreshAfterWrite = Duration.ofMinutes(5);
+
+        /**
+         * 不存在的客户端ID/code最大缓存数量
+         */
+        private long negativeMaximumSize = 10000;
+
+        /**
+         * 不存在的客户端ID/code缓存有效期
+         */
+        private Duration negativeTtl = Duration.ofSeconds(30);
+
+        /**
+         * 集群缓存失效通知配置
+         */
+        private Invalidation invalidation = new Invalidation();
+
+        /**
+         * 启动预热配置
+         */
+        private Warmup warmup = new Warmup();
+    }
+
+    @Getter
+    @Setter
+    public static class Warmup {
+
+        /**
+         * 是否在启动时预热客户端缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每批处理的客户端数量
+         */
+        private int batchSize = 500;
+
+        /**
+         * 预热超时时间, 超时后使用已预热的部分数据继续启动
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Invalidation {
+
+        /**
+         * 失效通知方式
+         */
+        private InvalidationMode mode = InvalidationMode.CHANGE_STREAM;
+
+        /**
+         * 轮询间隔
+         */
+        private Duration pollInterval = Duration.ofSeconds(5);
+
+        /**
+         * 轮询时向前重叠查询的时间, 需要大于各写入方之间的时钟偏差
+         */
+        private Duration pollOverlap = Duration.ofMinutes(1);
+    }
+
+    public enum InvalidationMode {
+        /**
+         * Mongo change stream, 不支持时自动切换为轮询
+         */
+        CHANGE_STREAM,
+        /**
+         * 轮询 updateAt 字段
+         */
+        POLLING,
+        /**
+         * 不同步,仅依赖缓存有效期
+         */
+        NONE
+    }
 }
@@ -1,16 +1,25 @@
 package tech.aomi.cloud.gateway.api;
 
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.constant.MessageVersion;
 import tech.aomi.cloud.gateway.controller.RequestMessage;
 import tech.aomi.cloud.gateway.controller.ResponseMessage;
 import tech.aomi.cloud.gateway.controller.SignType;
+import tech.aomi.cloud.gateway.crypto.SignData;
 import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.filter.message.DecryptedBody;
+import tech.aomi.cloud.gateway.filter.message.DecryptedMessage;
 import tech.aomi.cloud.gateway.filter.message.MessageContext;
+import tech.aomi.cloud.gateway.filter.message.RawResultDecoder;
 import tech.aomi.common.exception.ServiceException;
 import tech.aomi.common.web.controller.Result;
 
 import java.nio.charset.Charset;
+import java.util.List;
 
 /**
  * 报文服务接口
@@ -65,6 +74,22 @@ public interface MessageService {
      */
     byte[] getSignData(ResponseMessage responseMessage);
 
+    /**
+     * 获取签名数据, 不拼接字符串, 计算签名时分段编码
+     *
+     * @param requestMessage 报文体
+     * @return 用于签名的数据
+     */
+    SignData signData(RequestMessage requestMessage);
+
+    /**
+     * 获取签名数据, 不拼接字符串, 计算签名时分段编码
+     *
+     * @param responseMessage 报文体
+     * @return 用于签名的数据
+     */
+    SignData signData(ResponseMessage responseMessage);
+
     /**
      * 创建请求参数
      *
@@ -74,12 +99,24 @@ public interface MessageService {
      */
     RequestMessage createRequestMessage(Client client, String payload);
 
+    /**
+     * 创建指定版本的请求报文
+     *
+     * @param client  目标客户端
+     * @param payload 请求参数明文
+     * @param version 报文版本
+     * @return 请求报文
+     */
+    RequestMessage createRequestMessage(Client client, String payload, MessageVersion version);
+
     /**
      * 初始化报文上下文
      * 1. 参数校验
      * 2. 初始化数据
+     *
+     * @return 初始化完成的报文上下文, 客户端信息通过响应式服务获取, 不阻塞调用线程
      */
-    void init(MessageContext context, RequestMessage body);
+    Mono<MessageContext> init(MessageContext context, RequestMessage body);
 
     HttpHeaders getRequestHeaders(MessageContext context);
 
@@ -97,6 +134,27 @@ public interface MessageService {
      */
     byte[] modifyRequestBody(ServerWebExchange exchange, MessageContext context);
 
+    /**
+     * 解密传输秘钥及请求参数
+     * 不修改context, 可以与签名验证并行执行
+     *
+     * @param exchange exchange
+     * @param context  报文上下文
+     * @return 解密结果
+     */
+    DecryptedMessage decrypt(ServerWebExchange exchange, MessageContext context);
+
+    /**
+     * 分段解密流式解析的请求参数, 明文直接写入 DataBuffer
+     * 不修改context, 可以与签名验证并行执行
+     *
+     * @param exchange      exchange
+     * @param context       报文上下文, payloadText 不为空
+     * @param bufferFactory 明文 DataBuffer 工厂
+     * @return 解密结果
+     */
+    DecryptedBody decryptToBuffers(ServerWebExchange exchange, MessageContext context, DataBufferFactory bufferFactory);
+
     /**
      * 转换原始响应的数据为标准响应格式的数据
      *
@@ -106,6 +164,31 @@ public interface MessageService {
      */
     ResponseMessage modifyResponseBody(ServerWebExchange exchange, MessageContext context, Result.Entity body);
 
+    /**
+     * 转换原始响应的数据为标准响应格式, 加密、签名后直接写入 DataBuffer
+     * 结果与 {@link #modifyResponseBody} 加 {@link #sign} 后序列化的报文一致
+     *
+     * @param exchange      exchange
+     * @param context       报文上下文
+     * @param body          原始响应数据
+     * @param bufferFactory 报文 DataBuffer 工厂
+     * @return 响应报文
+     * @throws IllegalStateException 版本或字符集不支持分段处理, 见 {@link MessageContext#isStreamable()}
+     */
+    List<DataBuffer> writeResponseBody(ServerWebExchange exchange, MessageContext context, Result.Entity body, DataBufferFactory bufferFactory);
+
+    /**
+     * 使用后端响应中 payload 的原始字节生成响应报文, 不绑定、不重新序列化 payload
+     * 调用后释放原始响应体
+     *
+     * @param exchange      exchange
+     * @param context       报文上下文, 字符集为 UTF-8
+     * @param body          后端响应解析结果
+     * @param bufferFactory 报文 DataBuffer 工厂
+     * @return 响应报文
+     */
+    List<DataBuffer> writeResponseBody(ServerWebExchange exchange, MessageContext context, RawResultDecoder.RawResult body, DataBufferFactory bufferFactory);
+
     /**
      * 响应数据进行签名
      *
@@ -0,0 +1,46 @@
+package tech.aomi.cloud.gateway.api;
+
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.cache.ClientSnapshot;
+import tech.aomi.cloud.gateway.entity.Client;
+
+/**
+ * 响应式客户端服务
+ * 供网关过滤器使用,所有方法均不阻塞调用线程
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public interface ReactiveClientService {
+
+    /**
+     * 获取客户端
+     *
+     * @param clientId 客户端ID
+     * @return 客户端信息, 不存在时为空
+     */
+    Mono<Client> getClient(String clientId);
+
+    /**
+     * 通过code获取客户端
+     *
+     * @param code code
+     * @return 客户端信息, 不存在时为空
+     */
+    Mono<Client> getClientByCode(String code);
+
+    /**
+     * 获取客户端快照
+     *
+     * @param clientId 客户端ID
+     * @return 客户端快照, 不存在时为空
+     */
+    Mono<ClientSnapshot> getSnapshot(String clientId);
+
+    /**
+     * 通过code获取客户端快照
+     *
+     * @param code code
+     * @return 客户端快照, 不存在时为空
+     */
+    Mono<ClientSnapshot> getSnapshotByCode(String code);
+}
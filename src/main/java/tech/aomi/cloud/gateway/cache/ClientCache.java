@@ -0,0 +1,238 @@
+package tech.aomi.cloud.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.constant.CacheKey;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
+import tech.aomi.cloud.gateway.crypto.TrkCache;
+import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.repository.ReactiveClientRepository;
+import tech.aomi.cloud.gateway.session.SessionStore;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 客户端本地缓存
+ * 以id为主键缓存编译后的客户端快照,同时维护code到id的索引,同一个客户端只缓存一份
+ * 写入超过 refreshAfterWrite 后访问会异步刷新,热点客户端不会出现缓存未命中
+ * 不存在的ID/code短时间内缓存,非法请求直接在内存中拒绝
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Component
+public class ClientCache {
+
+    private static final String ID_PREFIX = "id:";
+
+    private static final String CODE_PREFIX = "code:";
+
+    private final ReactiveClientRepository reactiveClientRepository;
+
+    private final KeyCache keyCache;
+
+    private final SessionStore sessionStore;
+
+    private final TrkCache trkCache;
+
+    /**
+     * id -> client
+     */
+    private final AsyncLoadingCache<String, ClientSnapshot> clients;
+
+    /**
+     * code -> id
+     */
+    private final Map<String, String> codeIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 不存在的客户端, key: id:{id} 或 code:{code}
+     */
+    private final Cache<String, Boolean> unknown;
+
+    @Autowired
+    public ClientCache(ReactiveClientRepository reactiveClientRepository, KeyCache keyCache, SessionStore sessionStore, TrkCache trkCache, GatewayProperties properties, MeterRegistry meterRegistry) {
+        this(reactiveClientRepository, keyCache, sessionStore, trkCache, properties, meterRegistry, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param ticker   过期、刷新使用的时钟
+     * @param executor 异步刷新及删除监听器使用的线程池
+     */
+    public ClientCache(ReactiveClientRepository reactiveClientRepository, KeyCache keyCache, SessionStore sessionStore, TrkCache trkCache, GatewayProperties properties, MeterRegistry meterRegistry, Ticker ticker, Executor executor) {
+        this.reactiveClientRepository = reactiveClientRepository;
+        this.keyCache = keyCache;
+        this.sessionStore = sessionStore;
+        this.trkCache = trkCache;
+
+        GatewayProperties.ClientCache config = properties.getClientCache();
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getExpireAfterWrite())
+                .refreshAfterWrite(config.getRefreshAfterWrite())
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .<String, ClientSnapshot>removalListener(this::onRemoval)
+                .buildAsync((id, loadExecutor) -> reactiveClientRepository.findById(id)
+                        .doOnNext(this::index)
+                        .map(this::compile)
+                        .toFuture());
+
+        this.unknown = Caffeine.newBuilder()
+                .maximumSize(config.getNegativeMaximumSize())
+                .expireAfterWrite(config.getNegativeTtl())
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, clients.synchronous(), CacheKey.CLIENT);
+        CaffeineCacheMetrics.monitor(meterRegistry, unknown, CacheKey.CLIENT_UNKNOWN);
+    }
+
+    /**
+     * 通过id获取客户端,未命中时从Mongo加载
+     *
+     * @param id 客户端ID
+     * @return 客户端快照, 不存在时为空
+     */
+    public Mono<ClientSnapshot> getById(String id) {
+        if (!clients.asMap().containsKey(id) && null != unknown.getIfPresent(ID_PREFIX + id)) {
+            return Mono.empty();
+        }
+        return toMono(clients.get(id))
+                .switchIfEmpty(Mono.fromRunnable(() -> unknown.put(ID_PREFIX + id, Boolean.TRUE)));
+    }
+
+    /**
+     * 通过code获取客户端,命中索引时直接使用id对应的缓存
+     *
+     * @param code 客户端code
+     * @return 客户端快照, 不存在时为空
+     */
+    public Mono<ClientSnapshot> getByCode(String code) {
+        String id = codeIndex.get(code);
+        CompletableFuture<ClientSnapshot> future = null == id ? null : clients.getIfPresent(id);
+        if (null == future) {
+            return loadByCode(code);
+        }
+        // 客户端code被修改后,旧的索引可能还未清理
+        return toMono(future)
+                .filter(snapshot -> code.equals(snapshot.getCode()))
+                .switchIfEmpty(Mono.defer(() -> {
+                    codeIndex.remove(code, id);
+                    return loadByCode(code);
+                }));
+    }
+
+    /**
+     * 编译客户端快照并放入缓存
+     *
+     * @return 客户端快照
+     */
+    public ClientSnapshot put(Client client) {
+        index(client);
+        ClientSnapshot snapshot = compile(client);
+        clients.put(client.getId(), CompletableFuture.completedFuture(snapshot));
+        return snapshot;
+    }
+
+    /**
+     * 删除客户端缓存
+     *
+     * @param client 客户端信息,id和code都会被清理
+     */
+    public void evict(Client client) {
+        evict(client.getId(), client.getCode());
+    }
+
+    /**
+     * 删除客户端缓存, 同时删除客户端解析后的秘钥、传输秘钥、会话以及不存在的记录
+     *
+     * @param id   客户端ID
+     * @param code 客户端code, 可以为空
+     */
+    public void evict(String id, String code) {
+        if (StringUtils.isNotEmpty(id)) {
+            clients.synchronous().invalidate(id);
+            keyCache.evict(id);
+            sessionStore.evict(id);
+            trkCache.evict(id);
+            unknown.invalidate(ID_PREFIX + id);
+        }
+        if (StringUtils.isNotEmpty(code)) {
+            codeIndex.remove(code);
+            unknown.invalidate(CODE_PREFIX + code);
+        }
+    }
+
+    private Mono<ClientSnapshot> loadByCode(String code) {
+        String unknownKey = CODE_PREFIX + code;
+        if (null != unknown.getIfPresent(unknownKey)) {
+            return Mono.empty();
+        }
+        LOGGER.debug("客户端缓存未命中,通过code加载: {}", code);
+        return reactiveClientRepository.findByCode(code)
+                .map(this::put)
+                .switchIfEmpty(Mono.fromRunnable(() -> unknown.put(unknownKey, Boolean.TRUE)));
+    }
+
+    private ClientSnapshot compile(Client client) {
+        PublicKey clientPublicKey = null;
+        PrivateKey privateKey = null;
+        try {
+            if (StringUtils.isNotEmpty(client.getClientPublicKey())) {
+                clientPublicKey = keyCache.publicKey(client.getId(), client.getClientPublicKey());
+            }
+            if (StringUtils.isNotEmpty(client.getPrivateKey())) {
+                privateKey = keyCache.privateKey(client.getId(), client.getPrivateKey());
+            }
+        } catch (Exception e) {
+            LOGGER.warn("客户端秘钥解析失败: {}, {}", client.getCode(), e.getMessage());
+        }
+        return new ClientSnapshot(client, clientPublicKey, privateKey);
+    }
+
+    /**
+     * 刷新、覆盖写入(REPLACED)时索引已指向新值, 不能删除; 监听器异步执行, 执行时可能已重新加载
+     */
+    private void onRemoval(String id, ClientSnapshot snapshot, RemovalCause cause) {
+        if (RemovalCause.REPLACED == cause || null == snapshot || null == snapshot.getCode()) {
+            return;
+        }
+        if (!clients.asMap().containsKey(id)) {
+            codeIndex.remove(snapshot.getCode(), id);
+        }
+    }
+
+    private void index(Client client) {
+        if (null != client.getCode()) {
+            codeIndex.put(client.getCode(), client.getId());
+        }
+    }
+
+    /**
+     * 使用future的副本,避免下游取消订阅时取消缓存中共享的future
+     */
+    private static <T> Mono<T> toMono(CompletableFuture<T> future) {
+        return Mono.fromFuture(future.copy());
+    }
+}
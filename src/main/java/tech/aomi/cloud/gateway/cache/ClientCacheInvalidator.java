@@ -0,0 +1,58 @@
+package tech.aomi.cloud.gateway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * 订阅客户端变更通知,清理本实例的客户端缓存
+ * 保证管理接口在任意实例上修改客户端后,其他实例立即失效旧数据
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Component
+public class ClientCacheInvalidator implements SmartLifecycle {
+
+    private final ClientCache clientCache;
+
+    private final ClientChangeFeed clientChangeFeed;
+
+    private volatile Disposable subscription;
+
+    public ClientCacheInvalidator(ClientCache clientCache, ClientChangeFeed clientChangeFeed) {
+        this.clientCache = clientCache;
+        this.clientChangeFeed = clientChangeFeed;
+    }
+
+    @Override
+    public void start() {
+        subscription = clientChangeFeed.changes()
+                .doOnNext(event -> {
+                    LOGGER.debug("客户端变更,清理缓存: {}", event);
+                    clientCache.evict(event.getId(), event.getCode());
+                })
+                .doOnError(e -> LOGGER.warn("客户端变更通知中断, 稍后重试: {}", e.getMessage()))
+                // 收到事件后重新计算退避时间
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1)).transientErrors(true))
+                .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        Disposable tmp = subscription;
+        if (null != tmp) {
+            tmp.dispose();
+        }
+        subscription = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return null != subscription;
+    }
+}
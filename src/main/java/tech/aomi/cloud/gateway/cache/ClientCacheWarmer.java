@@ -0,0 +1,64 @@
+package tech.aomi.cloud.gateway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.repository.ReactiveClientRepository;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动时预热客户端缓存及解析后的秘钥
+ * ApplicationRunner 执行完成后 Spring Boot 才会把 readiness 状态设置为 ACCEPTING_TRAFFIC,
+ * 预热期间 Kubernetes readiness 探针失败, 新实例不会接收流量
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Component
+public class ClientCacheWarmer implements ApplicationRunner {
+
+    private final ReactiveClientRepository reactiveClientRepository;
+
+    private final ClientCache clientCache;
+
+    private final GatewayProperties.Warmup config;
+
+    public ClientCacheWarmer(ReactiveClientRepository reactiveClientRepository, ClientCache clientCache, GatewayProperties properties) {
+        this.reactiveClientRepository = reactiveClientRepository;
+        this.clientCache = clientCache;
+        this.config = properties.getClientCache().getWarmup();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        AtomicInteger count = new AtomicInteger();
+        try {
+            reactiveClientRepository.findAll()
+                    .buffer(config.getBatchSize())
+                    .doOnNext(batch -> warmup(batch, count))
+                    .then()
+                    .block(config.getTimeout());
+            LOGGER.info("客户端缓存预热完成: {}, 耗时: {}ms", count.get(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            LOGGER.warn("客户端缓存预热未完成,使用已预热的数据继续启动: {}, 耗时: {}ms, {}", count.get(), System.currentTimeMillis() - start, e.getMessage());
+        }
+    }
+
+    private void warmup(List<Client> batch, AtomicInteger count) {
+        for (Client client : batch) {
+            // 编译快照时会解析秘钥并放入秘钥缓存
+            clientCache.put(client);
+            count.incrementAndGet();
+        }
+        LOGGER.debug("客户端缓存预热: {}", count.get());
+    }
+}
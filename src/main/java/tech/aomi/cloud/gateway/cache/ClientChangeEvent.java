@@ -0,0 +1,26 @@
+package tech.aomi.cloud.gateway.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 客户端变更事件
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ClientChangeEvent {
+
+    /**
+     * 客户端ID
+     */
+    private final String id;
+
+    /**
+     * 客户端code, 删除事件中可能为空
+     */
+    private final String code;
+}
@@ -0,0 +1,18 @@
+package tech.aomi.cloud.gateway.cache;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * 客户端变更通知源
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@FunctionalInterface
+public interface ClientChangeFeed {
+
+    /**
+     * 客户端变更事件流
+     * 每个网关实例订阅一次,收到事件后清理本地缓存
+     */
+    Flux<ClientChangeEvent> changes();
+}
@@ -0,0 +1,89 @@
+package tech.aomi.cloud.gateway.cache;
+
+import lombok.Getter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.CollectionUtils;
+import tech.aomi.cloud.gateway.constant.Header;
+import tech.aomi.cloud.gateway.constant.MessageVersion;
+import tech.aomi.cloud.gateway.entity.Client;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * 客户端编译后的不可变快照
+ * 加载客户端时一次性解析秘钥、构建固定请求头和响应头, 请求处理过程中直接使用
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Getter
+public class ClientSnapshot {
+
+    private final Client client;
+
+    /**
+     * 客户端公钥, 未配置或格式错误时为空
+     */
+    private final PublicKey clientPublicKey;
+
+    /**
+     * 服务端私钥, 未配置或格式错误时为空
+     */
+    private final PrivateKey privateKey;
+
+    /**
+     * 转发到后端服务时添加的请求头, 只读
+     */
+    private final HttpHeaders requestHeaders;
+
+    /**
+     * 响应客户端时添加的响应头, 只读
+     */
+    private final HttpHeaders responseHeaders;
+
+    /**
+     * 3.0.0 版本报文响应头, 只读
+     */
+    private final HttpHeaders v3ResponseHeaders;
+
+    public ClientSnapshot(Client client, PublicKey clientPublicKey, PrivateKey privateKey) {
+        this.client = client;
+        this.clientPublicKey = clientPublicKey;
+        this.privateKey = privateKey;
+
+        HttpHeaders request = new HttpHeaders();
+        request.add(Header.MESSAGE_VERSION, MessageVersion.LATEST.getVersion());
+        request.add(Header.CLIENT_ID, client.getId());
+        if (!CollectionUtils.isEmpty(client.getRequestHeaders())) {
+            client.getRequestHeaders().forEach(request::add);
+        }
+        this.requestHeaders = HttpHeaders.readOnlyHttpHeaders(request);
+
+        this.responseHeaders = responseHeaders(client, MessageVersion.LATEST);
+        this.v3ResponseHeaders = responseHeaders(client, MessageVersion.V3_0_0);
+    }
+
+    /**
+     * 获取指定报文版本的响应头
+     */
+    public HttpHeaders getResponseHeaders(MessageVersion version) {
+        return MessageVersion.V3_0_0 == version ? v3ResponseHeaders : responseHeaders;
+    }
+
+    public String getId() {
+        return client.getId();
+    }
+
+    public String getCode() {
+        return client.getCode();
+    }
+
+    private static HttpHeaders responseHeaders(Client client, MessageVersion version) {
+        HttpHeaders response = new HttpHeaders();
+        response.add(Header.MESSAGE_VERSION, version.getVersion());
+        if (!CollectionUtils.isEmpty(client.getResponseHeaders())) {
+            client.getResponseHeaders().forEach(response::add);
+        }
+        return HttpHeaders.readOnlyHttpHeaders(response);
+    }
+}
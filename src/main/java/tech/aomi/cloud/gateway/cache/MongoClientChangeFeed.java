@@ -0,0 +1,185 @@
+package tech.aomi.cloud.gateway.cache;
+
+import com.mongodb.MongoException;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.entity.Client;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 基于Mongo的客户端变更通知
+ * 优先使用 change stream, 部署环境不支持时(非副本集)切换为轮询 updateAt 字段
+ * 事件流出错时直接抛出, 由订阅方退避重试; change stream 重试时从最后一次收到的 resume token 继续, 轮询重试时从上次的水位继续
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Component
+public class MongoClientChangeFeed implements ClientChangeFeed {
+
+    /**
+     * $changeStream 只支持副本集和分片集群
+     */
+    private static final int CHANGE_STREAM_UNSUPPORTED = 40573;
+
+    /**
+     * resume token 对应的 oplog 已被覆盖
+     */
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final GatewayProperties.Invalidation config;
+
+    private final AtomicReference<BsonValue> resumeToken = new AtomicReference<>();
+
+    private volatile boolean changeStreamUnsupported;
+
+    /**
+     * 已读取到的最大 updateAt, 取自数据库中的数据, 不使用本机时间
+     */
+    private volatile Date watermark;
+
+    /**
+     * 水位重叠窗口内已通知过的客户端, id -> updateAt
+     */
+    private final Map<String, Date> polled = new ConcurrentHashMap<>();
+
+    public MongoClientChangeFeed(ReactiveMongoTemplate reactiveMongoTemplate, GatewayProperties properties) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.config = properties.getClientCache().getInvalidation();
+    }
+
+    @Override
+    public Flux<ClientChangeEvent> changes() {
+        switch (config.getMode()) {
+            case CHANGE_STREAM:
+                if (changeStreamUnsupported) {
+                    return polling();
+                }
+                return changeStream().onErrorResume(e -> hasErrorCode(e, CHANGE_STREAM_UNSUPPORTED), e -> {
+                    LOGGER.warn("客户端 change stream 不可用,切换为轮询: {}", e.getMessage());
+                    changeStreamUnsupported = true;
+                    return polling();
+                });
+            case POLLING:
+                return polling();
+            default:
+                return Flux.empty();
+        }
+    }
+
+    private Flux<ClientChangeEvent> changeStream() {
+        String collectionName = reactiveMongoTemplate.getCollectionName(Client.class);
+        return Flux.defer(() -> {
+                    ChangeStreamOptions.ChangeStreamOptionsBuilder builder = ChangeStreamOptions.builder().returnFullDocumentOnUpdate();
+                    BsonValue token = resumeToken.get();
+                    if (null != token) {
+                        builder.resumeAfter(token);
+                    }
+                    return reactiveMongoTemplate.changeStream(collectionName, builder.build(), Client.class);
+                })
+                .doOnNext(event -> {
+                    BsonValue token = event.getResumeToken();
+                    if (null != token) {
+                        resumeToken.set(token);
+                    }
+                })
+                .map(this::toEvent)
+                .doOnError(e -> {
+                    if (hasErrorCode(e, CHANGE_STREAM_HISTORY_LOST)) {
+                        LOGGER.warn("客户端 change stream 无法从上次位置继续, 中断期间的变更依赖缓存有效期淘汰: {}", e.getMessage());
+                        resumeToken.set(null);
+                    }
+                });
+    }
+
+    private ClientChangeEvent toEvent(ChangeStreamEvent<Client> event) {
+        Client client = event.getBody();
+        if (null != client) {
+            return new ClientChangeEvent(client.getId(), client.getCode());
+        }
+        // 删除事件没有文档内容,只能从 documentKey 中获取ID
+        BsonDocument documentKey = null == event.getRaw() ? null : event.getRaw().getDocumentKey();
+        BsonValue id = null == documentKey ? null : documentKey.get("_id");
+        if (null == id) {
+            return new ClientChangeEvent(null, null);
+        }
+        String idStr = id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+        return new ClientChangeEvent(idStr, null);
+    }
+
+    /**
+     * 轮询 updateAt 大于水位的客户端
+     * updateAt 由写入方的时钟生成, 每次查询向前重叠 pollOverlap, 重叠部分按 id、updateAt 去重
+     * 轮询方式无法感知删除, 删除的客户端依赖缓存有效期淘汰
+     */
+    private Flux<ClientChangeEvent> polling() {
+        return initWatermark()
+                .thenMany(Flux.interval(config.getPollInterval()))
+                .onBackpressureDrop()
+                .concatMap(tick -> poll());
+    }
+
+    /**
+     * 首次订阅时使用数据库中最大的 updateAt 作为水位
+     */
+    private Mono<Void> initWatermark() {
+        return Mono.defer(() -> {
+            if (null != watermark) {
+                return Mono.empty();
+            }
+            Query query = Query.query(Criteria.where("updateAt").ne(null))
+                    .with(Sort.by(Sort.Direction.DESC, "updateAt"))
+                    .limit(1);
+            query.fields().include("updateAt");
+            return reactiveMongoTemplate.findOne(query, Client.class)
+                    .map(Client::getUpdateAt)
+                    .defaultIfEmpty(new Date(0))
+                    .doOnNext(updateAt -> watermark = updateAt)
+                    .then();
+        });
+    }
+
+    private Flux<ClientChangeEvent> poll() {
+        Date from = new Date(watermark.getTime() - config.getPollOverlap().toMillis());
+        Query query = Query.query(Criteria.where("updateAt").gt(from));
+        query.fields().include("code").include("updateAt");
+        return reactiveMongoTemplate.find(query, Client.class)
+                .filter(client -> !client.getUpdateAt().equals(polled.put(client.getId(), client.getUpdateAt())))
+                .doOnNext(client -> {
+                    if (client.getUpdateAt().after(watermark)) {
+                        watermark = client.getUpdateAt();
+                    }
+                })
+                .map(client -> new ClientChangeEvent(client.getId(), client.getCode()))
+                .doOnComplete(() -> {
+                    long expired = watermark.getTime() - config.getPollOverlap().toMillis();
+                    polled.values().removeIf(updateAt -> updateAt.getTime() <= expired);
+                });
+    }
+
+    private static boolean hasErrorCode(Throwable e, int code) {
+        for (Throwable t = e; null != t; t = t.getCause()) {
+            if (t instanceof MongoException && ((MongoException) t).getCode() == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -6,4 +6,19 @@ package tech.aomi.cloud.gateway.constant;
 public class CacheKey {
 
     public static final String CLIENT = "GATEWAY_CLIENT";
+
+    /**
+     * 不存在的客户端
+     */
+    public static final String CLIENT_UNKNOWN = "GATEWAY_CLIENT_UNKNOWN";
+
+    /**
+     * 握手建立的会话
+     */
+    public static final String SESSION = "GATEWAY_SESSION";
+
+    /**
+     * 解密后的传输秘钥
+     */
+    public static final String TRK = "GATEWAY_TRK";
 }
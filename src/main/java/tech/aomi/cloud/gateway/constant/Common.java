@@ -18,11 +18,66 @@ public class Common {
      */
     public static final int AES_KEY_LENGTH = 128;
 
+    /**
+     * AES-GCM 加密算法, 用于 3.0.0 版本报文
+     */
+    public static final String AES_GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+
+    /**
+     * AES-GCM 秘钥长度, 字节
+     */
+    public static final int AES_GCM_KEY_LENGTH = 32;
+
+    /**
+     * AES-GCM 向量长度, 字节
+     */
+    public static final int AES_GCM_NONCE_LENGTH = 12;
+
+    /**
+     * AES-GCM 认证标签长度, 位
+     */
+    public static final int AES_GCM_TAG_LENGTH = 128;
+
+    /**
+     * 秘钥协商算法
+     */
+    public static final String X25519_ALGORITHM = "X25519";
+
+    /**
+     * 3.0.0 版本报文秘钥派生上下文信息前缀
+     */
+    public static final String V3_KEY_INFO = "aomi-gateway-v3:";
+
+    /**
+     * 会话签名秘钥派生上下文信息
+     */
+    public static final String SESSION_MAC_KEY_INFO = "aomi-gateway-session-mac";
+
+    /**
+     * RSA 加解密算法、模式、补位方式, 与 RSAUtil 默认的 RSA 算法一致
+     */
+    public static final String RSA_TRANSFORMATION = "RSA/ECB/PKCS1Padding";
+
     /**
      * RSA 签名算法
      */
     public static final String RSA_SIGN_ALGORITHM = RSAUtil.SIGN_ALGORITHMS_SHA512;
 
+    /**
+     * HMAC 签名算法
+     */
+    public static final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
+
+    /**
+     * Ed25519 签名算法
+     */
+    public static final String ED25519_SIGN_ALGORITHM = "Ed25519";
+
+    /**
+     * ECDSA P-256 签名算法
+     */
+    public static final String ECDSA_P256_SIGN_ALGORITHM = "SHA256withECDSA";
+
     /**
      * 时间戳格式
      */
@@ -11,6 +11,11 @@ public enum MessageVersion {
 
     V1_0_0("1.0.0"),
     V2_0_0("2.0.0"),
+    /**
+     * X25519 秘钥协商 + AES-GCM
+     * 不再使用 trk 和 sign, 报文认证由 GCM 完成
+     */
+    V3_0_0("3.0.0"),
     LATEST("2.0.0");
 
     String version;
@@ -37,6 +37,18 @@ public class RequestMessage implements java.io.Serializable {
      */
     private String trk;
 
+    /**
+     * 3.0.0 版本使用
+     * 发送方临时 X25519 公钥, X.509 格式 Base64编码
+     */
+    private String epk;
+
+    /**
+     * 握手建立的会话ID
+     * 使用会话时不再传输 trk, 使用会话秘钥加密、HMAC_SHA256 签名
+     */
+    private String sessionId;
+
     /**
      * 发送请求的时间
      * 格式: yyyy-MM-dd HH:mm:ss.SSS
@@ -78,10 +90,12 @@ public class RequestMessage implements java.io.Serializable {
         Optional.ofNullable(args.getFirst("charset")).ifPresent(charset -> this.charset = charset);
         Optional.ofNullable(args.getFirst("clientId")).ifPresent(clientId -> this.clientId = urlDecode(clientId));
         Optional.ofNullable(args.getFirst("trk")).ifPresent(trk -> this.trk = urlDecode(trk));
+        Optional.ofNullable(args.getFirst("epk")).ifPresent(epk -> this.epk = urlDecode(epk));
+        Optional.ofNullable(args.getFirst("sessionId")).ifPresent(sessionId -> this.sessionId = urlDecode(sessionId));
         Optional.ofNullable(args.getFirst("timestamp")).ifPresent(timestamp -> this.timestamp = urlDecode(timestamp));
         Optional.ofNullable(args.getFirst("randomString")).ifPresent(randomString -> this.randomString = urlDecode(randomString));
         Optional.ofNullable(args.getFirst("payload")).ifPresent(payload -> this.payload = urlDecode(payload));
-        Optional.ofNullable(args.getFirst("signType")).ifPresent(signType -> this.signType = SignType.valueOf(signType));
+        Optional.ofNullable(args.getFirst("signType")).ifPresent(signType -> this.signType = SignType.of(signType));
         Optional.ofNullable(args.getFirst("sign")).ifPresent(sign -> this.sign = urlDecode(sign));
     }
 
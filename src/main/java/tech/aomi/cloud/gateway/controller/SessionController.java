@@ -0,0 +1,86 @@
+package tech.aomi.cloud.gateway.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.Assert;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.api.MessageService;
+import tech.aomi.cloud.gateway.crypto.CryptoScheduler;
+import tech.aomi.cloud.gateway.filter.message.DecryptedMessage;
+import tech.aomi.cloud.gateway.filter.message.MessageContext;
+import tech.aomi.cloud.gateway.guard.SignatureFailureGuard;
+import tech.aomi.cloud.gateway.session.Session;
+import tech.aomi.cloud.gateway.session.SessionStore;
+import tech.aomi.common.exception.ServiceException;
+import tech.aomi.common.exception.SignatureException;
+import tech.aomi.common.web.controller.AbstractController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 会话握手
+ * 握手请求为标准报文, 验签、解密通过后以传输秘钥作为会话秘钥
+ * 之后的报文携带 sessionId 代替 trk, 使用会话秘钥加密、HMAC_SHA256 签名, 不再需要 RSA 运算
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@RestController
+@RequestMapping("/sessions")
+public class SessionController extends AbstractController {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private CryptoScheduler cryptoScheduler;
+
+    @Autowired
+    private SignatureFailureGuard signatureFailureGuard;
+
+    /**
+     * 建立会话
+     * 响应报文数据: sessionId 会话ID, expiresIn 有效期(秒)
+     */
+    @PostMapping
+    public Mono<ResponseMessage> handshake(@RequestBody RequestMessage body, ServerWebExchange exchange) {
+        MessageContext context = new MessageContext();
+        return Mono.defer(() -> {
+                    Assert.isNull(body.getSessionId(), "握手请求不能使用会话");
+                    return messageService.init(context, body);
+                })
+                .flatMap(ctx -> signatureFailureGuard.isBlocked(exchange, ctx.getClient().getId())
+                        ? Mono.error(new ServiceException("签名校验失败次数过多,请稍后重试"))
+                        : Mono.just(ctx))
+                .flatMap(ctx -> cryptoScheduler.execute(() -> {
+                    try {
+                        messageService.verify(exchange, ctx);
+                    } catch (SignatureException e) {
+                        signatureFailureGuard.recordFailure(exchange, ctx.getClient().getId());
+                        throw e;
+                    }
+                    DecryptedMessage message = messageService.decrypt(exchange, ctx);
+                    try {
+                        Session session = sessionStore.create(ctx.getClient().getId(), message.getTrk().clone());
+                        Map<String, Object> payload = new LinkedHashMap<>();
+                        payload.put("sessionId", session.getId());
+                        payload.put("expiresIn", session.getExpiresIn());
+
+                        ctx.setTrk(message.getTrk());
+                        ResponseMessage response = messageService.modifyResponseBody(exchange, ctx, success(payload).getBody());
+                        messageService.sign(exchange, ctx, response);
+                        return response;
+                    } finally {
+                        message.destroy();
+                    }
+                }))
+                .doOnNext(response -> exchange.getResponse().getHeaders().addAll(messageService.getResponseHeaders(context)));
+    }
+}
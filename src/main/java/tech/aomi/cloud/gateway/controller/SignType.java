@@ -6,5 +6,29 @@ package tech.aomi.cloud.gateway.controller;
  * @author Sean createAt 2021/6/22
  */
 public enum SignType {
-    RSA
+    RSA,
+    /**
+     * 使用客户端共享秘钥计算 HMAC-SHA256, 仅用于受信任的内部客户端
+     */
+    HMAC_SHA256,
+    /**
+     * Ed25519 签名
+     */
+    ED25519,
+    /**
+     * ECDSA P-256 曲线, SHA256withECDSA, 签名为 DER 编码
+     */
+    ECDSA_P256;
+
+    /**
+     * @param value 签名方式名称
+     * @return 签名方式, 不支持时为空
+     */
+    public static SignType of(String value) {
+        try {
+            return SignType.valueOf(value);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,388 @@
+package tech.aomi.cloud.gateway.crypto;
+
+import tech.aomi.cloud.gateway.constant.Common;
+import tech.aomi.common.utils.crypto.AesUtils;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 加解密、签名引擎
+ * 每个线程按算法缓存 Cipher、Signature、Mac 实例, 调用时只需要 init, 避免每次查找 Provider 及创建对象
+ * 线程封闭, 不需要加锁, 也不会修改 AesUtils 的全局配置
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public final class CryptoEngine {
+
+    private static final String AES = "AES";
+
+    private static final ThreadLocal<Map<String, Cipher>> CIPHERS = ThreadLocal.withInitial(HashMap::new);
+
+    private static final ThreadLocal<Map<String, Signature>> SIGNATURES = ThreadLocal.withInitial(HashMap::new);
+
+    private static final ThreadLocal<Map<String, Mac>> MACS = ThreadLocal.withInitial(HashMap::new);
+
+    private static final ThreadLocal<KeyAgreement> X25519_AGREEMENT = ThreadLocal.withInitial(() -> getInstance(KeyAgreement::getInstance, Common.X25519_ALGORITHM));
+
+    private static final ThreadLocal<KeyFactory> X25519_KEY_FACTORY = ThreadLocal.withInitial(() -> getInstance(KeyFactory::getInstance, Common.X25519_ALGORITHM));
+
+    private static final ThreadLocal<KeyPairGenerator> X25519_KEY_PAIR_GENERATOR = ThreadLocal.withInitial(() -> getInstance(KeyPairGenerator::getInstance, Common.X25519_ALGORITHM));
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> getInstance(MessageDigest::getInstance, "SHA-256"));
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * AES CBC 向量长度, 向量取秘钥的前 16 字节, 与 tech.aomi.common:utils 1.0.13 中 AesUtils 的规则一致
+     */
+    private static final int AES_IV_LENGTH = 16;
+
+    static {
+        AesUtils.setTransformation(Common.AES_TRANSFORMATION);
+        AesUtils.setKeyLength(Common.AES_KEY_LENGTH);
+        checkAesUtils();
+    }
+
+    private CryptoEngine() {
+    }
+
+    /**
+     * 启动时调用, 提前完成类加载及 AES 兼容性检查, 检查不通过时启动失败
+     */
+    public static void init() {
+        // 静态代码块中完成
+    }
+
+    /**
+     * AES 加密
+     *
+     * @param key  秘钥
+     * @param data 明文
+     * @return 密文
+     */
+    public static byte[] aesEncrypt(byte[] key, byte[] data) throws GeneralSecurityException {
+        return aes(Cipher.ENCRYPT_MODE, key, data);
+    }
+
+    /**
+     * AES 解密
+     *
+     * @param key  秘钥
+     * @param data 密文
+     * @return 明文
+     */
+    public static byte[] aesDecrypt(byte[] key, byte[] data) throws GeneralSecurityException {
+        return aes(Cipher.DECRYPT_MODE, key, data);
+    }
+
+    /**
+     * 初始化 AES Cipher, 用于分段 update 加解密
+     * 返回当前线程缓存的实例, 只能在当前线程内使用
+     *
+     * @param mode {@link Cipher#ENCRYPT_MODE} 或 {@link Cipher#DECRYPT_MODE}
+     * @param key  秘钥
+     */
+    public static Cipher aesCipher(int mode, byte[] key) throws GeneralSecurityException {
+        Cipher cipher = cipher(Common.AES_TRANSFORMATION);
+        cipher.init(mode, new SecretKeySpec(key, AES), new IvParameterSpec(key, 0, AES_IV_LENGTH));
+        return cipher;
+    }
+
+    /**
+     * RSA 加密, 使用 {@link Common#RSA_TRANSFORMATION}
+     */
+    public static byte[] rsaEncrypt(Key key, byte[] data) throws GeneralSecurityException {
+        return rsa(Common.RSA_TRANSFORMATION, Cipher.ENCRYPT_MODE, key, data);
+    }
+
+    /**
+     * RSA 解密, 使用 {@link Common#RSA_TRANSFORMATION}
+     */
+    public static byte[] rsaDecrypt(Key key, byte[] data) throws GeneralSecurityException {
+        return rsa(Common.RSA_TRANSFORMATION, Cipher.DECRYPT_MODE, key, data);
+    }
+
+    /**
+     * RSA 加解密
+     *
+     * @param transformation 算法, 例如 RSA/ECB/PKCS1Padding、RSA/ECB/OAEPWithSHA-256AndMGF1Padding
+     * @param mode           {@link Cipher#ENCRYPT_MODE} 或 {@link Cipher#DECRYPT_MODE}
+     */
+    public static byte[] rsa(String transformation, int mode, Key key, byte[] data) throws GeneralSecurityException {
+        Cipher cipher = cipher(transformation);
+        cipher.init(mode, key);
+        return cipher.doFinal(data);
+    }
+
+    /**
+     * 签名
+     *
+     * @param algorithm  签名算法
+     * @param privateKey 私钥
+     * @param data       签名数据
+     * @return 签名
+     */
+    public static byte[] sign(String algorithm, PrivateKey privateKey, byte[] data) throws GeneralSecurityException {
+        Signature signature = signature(algorithm);
+        signature.initSign(privateKey);
+        signature.update(data);
+        return signature.sign();
+    }
+
+    /**
+     * 签名验证
+     *
+     * @param algorithm 签名算法
+     * @param publicKey 公钥
+     * @param data      签名数据
+     * @param sign      签名
+     * @return 签名是否正确
+     */
+    public static boolean verify(String algorithm, PublicKey publicKey, byte[] data, byte[] sign) throws GeneralSecurityException {
+        Signature signature = signature(algorithm);
+        signature.initVerify(publicKey);
+        signature.update(data);
+        return signature.verify(sign);
+    }
+
+    /**
+     * 初始化签名, 用于分段 update 后调用 {@link Signature#sign()}
+     * 返回当前线程缓存的实例, 只能在当前线程内使用
+     */
+    public static Signature signer(String algorithm, PrivateKey privateKey) throws GeneralSecurityException {
+        Signature signature = signature(algorithm);
+        signature.initSign(privateKey);
+        return signature;
+    }
+
+    /**
+     * 初始化验签, 用于分段 update 后调用 {@link Signature#verify(byte[])}
+     * 返回当前线程缓存的实例, 只能在当前线程内使用
+     */
+    public static Signature verifier(String algorithm, PublicKey publicKey) throws GeneralSecurityException {
+        Signature signature = signature(algorithm);
+        signature.initVerify(publicKey);
+        return signature;
+    }
+
+    /**
+     * 初始化消息认证码, 用于分段 update 后调用 {@link Mac#doFinal()}
+     * 返回当前线程缓存的实例, 只能在当前线程内使用
+     */
+    public static Mac mac(String algorithm, Key key) throws GeneralSecurityException {
+        Mac mac = mac(algorithm);
+        mac.init(key);
+        return mac;
+    }
+
+    /**
+     * 计算消息认证码
+     *
+     * @param algorithm 算法
+     * @param key       秘钥
+     * @param data      数据
+     * @return 消息认证码
+     */
+    public static byte[] mac(String algorithm, Key key, byte[] data) throws GeneralSecurityException {
+        Mac mac = mac(algorithm);
+        mac.init(key);
+        return mac.doFinal(data);
+    }
+
+    /**
+     * 计算 SHA-256 摘要
+     *
+     * @param data 数据
+     * @return 摘要
+     */
+    public static byte[] sha256(byte[] data) {
+        return SHA256.get().digest(data);
+    }
+
+    /**
+     * AES-GCM 加密, 每次使用随机向量
+     *
+     * @param key  秘钥
+     * @param aad  附加认证数据
+     * @param data 明文
+     * @return 向量 + 密文 + 认证标签
+     */
+    public static byte[] aesGcmEncrypt(byte[] key, byte[] aad, byte[] data) throws GeneralSecurityException {
+        byte[] nonce = new byte[Common.AES_GCM_NONCE_LENGTH];
+        RANDOM.nextBytes(nonce);
+        Cipher cipher = cipher(Common.AES_GCM_TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, AES), new GCMParameterSpec(Common.AES_GCM_TAG_LENGTH, nonce));
+        cipher.updateAAD(aad);
+        byte[] result = new byte[nonce.length + cipher.getOutputSize(data.length)];
+        System.arraycopy(nonce, 0, result, 0, nonce.length);
+        cipher.doFinal(data, 0, data.length, result, nonce.length);
+        return result;
+    }
+
+    /**
+     * AES-GCM 解密并验证认证标签
+     *
+     * @param key  秘钥
+     * @param aad  附加认证数据
+     * @param data 向量 + 密文 + 认证标签
+     * @return 明文
+     * @throws javax.crypto.AEADBadTagException 数据被篡改或秘钥错误
+     */
+    public static byte[] aesGcmDecrypt(byte[] key, byte[] aad, byte[] data) throws GeneralSecurityException {
+        if (data.length < Common.AES_GCM_NONCE_LENGTH + Common.AES_GCM_TAG_LENGTH / 8) {
+            throw new AEADBadTagException("密文长度不正确");
+        }
+        Cipher cipher = cipher(Common.AES_GCM_TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, AES), new GCMParameterSpec(Common.AES_GCM_TAG_LENGTH, data, 0, Common.AES_GCM_NONCE_LENGTH));
+        cipher.updateAAD(aad);
+        return cipher.doFinal(data, Common.AES_GCM_NONCE_LENGTH, data.length - Common.AES_GCM_NONCE_LENGTH);
+    }
+
+    /**
+     * 生成 X25519 临时秘钥对
+     */
+    public static KeyPair x25519KeyPair() {
+        return X25519_KEY_PAIR_GENERATOR.get().generateKeyPair();
+    }
+
+    /**
+     * 解析 X25519 公钥
+     *
+     * @param encoded X.509 格式公钥
+     */
+    public static PublicKey x25519PublicKey(byte[] encoded) throws GeneralSecurityException {
+        return X25519_KEY_FACTORY.get().generatePublic(new X509EncodedKeySpec(encoded));
+    }
+
+    /**
+     * X25519 秘钥协商
+     *
+     * @return 共享秘密
+     */
+    public static byte[] x25519(PrivateKey privateKey, PublicKey publicKey) throws GeneralSecurityException {
+        KeyAgreement agreement = X25519_AGREEMENT.get();
+        agreement.init(privateKey);
+        agreement.doPhase(publicKey, true);
+        return agreement.generateSecret();
+    }
+
+    /**
+     * HKDF-SHA256 (RFC 5869) 秘钥派生
+     *
+     * @param salt   盐
+     * @param ikm    原始秘钥材料
+     * @param info   上下文信息
+     * @param length 输出长度, 不超过 255 * 32
+     * @return 派生秘钥
+     */
+    public static byte[] hkdfSha256(byte[] salt, byte[] ikm, byte[] info, int length) throws GeneralSecurityException {
+        Mac mac = mac(Common.HMAC_SHA256_ALGORITHM);
+        mac.init(new SecretKeySpec(salt.length == 0 ? new byte[mac.getMacLength()] : salt, Common.HMAC_SHA256_ALGORITHM));
+        byte[] prk = mac.doFinal(ikm);
+
+        mac.init(new SecretKeySpec(prk, Common.HMAC_SHA256_ALGORITHM));
+        byte[] result = new byte[length];
+        byte[] block = new byte[0];
+        int offset = 0;
+        for (int i = 1; offset < length; i++) {
+            mac.update(block);
+            mac.update(info);
+            mac.update((byte) i);
+            block = mac.doFinal();
+            int size = Math.min(block.length, length - offset);
+            System.arraycopy(block, 0, result, offset, size);
+            offset += size;
+        }
+        Arrays.fill(prk, (byte) 0);
+        Arrays.fill(block, (byte) 0);
+        return result;
+    }
+
+    private static byte[] aes(int mode, byte[] key, byte[] data) throws GeneralSecurityException {
+        return aesCipher(mode, key).doFinal(data);
+    }
+
+    /**
+     * 启动时确认加密结果与 AesUtils 一致
+     * 依赖升级后向量规则发生变化时直接启动失败, 避免与使用 AesUtils 的客户端无法互通
+     */
+    private static void checkAesUtils() {
+        byte[] expected;
+        byte[] actual;
+        try {
+            byte[] key = AesUtils.generateKey(Common.AES_KEY_LENGTH);
+            byte[] data = "aomi-gateway-aes-check".getBytes(StandardCharsets.UTF_8);
+            expected = AesUtils.encrypt(key, data);
+            actual = aes(Cipher.ENCRYPT_MODE, key, data);
+        } catch (Exception e) {
+            throw new IllegalStateException("AES 兼容性检查失败", e);
+        }
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException("AES 加密结果与 AesUtils 不一致, 请检查 tech.aomi.common:utils 的版本");
+        }
+    }
+
+    private static Cipher cipher(String transformation) throws GeneralSecurityException {
+        Map<String, Cipher> ciphers = CIPHERS.get();
+        Cipher cipher = ciphers.get(transformation);
+        if (null == cipher) {
+            cipher = Cipher.getInstance(transformation);
+            ciphers.put(transformation, cipher);
+        }
+        return cipher;
+    }
+
+    private static Signature signature(String algorithm) throws GeneralSecurityException {
+        Map<String, Signature> signatures = SIGNATURES.get();
+        Signature signature = signatures.get(algorithm);
+        if (null == signature) {
+            signature = Signature.getInstance(algorithm);
+            signatures.put(algorithm, signature);
+        }
+        return signature;
+    }
+
+    private static Mac mac(String algorithm) throws GeneralSecurityException {
+        Map<String, Mac> macs = MACS.get();
+        Mac mac = macs.get(algorithm);
+        if (null == mac) {
+            mac = Mac.getInstance(algorithm);
+            macs.put(algorithm, mac);
+        }
+        return mac;
+    }
+
+    private static <T> T getInstance(Factory<T> factory, String algorithm) {
+        try {
+            return factory.create(algorithm);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Factory<T> {
+        T create(String algorithm) throws GeneralSecurityException;
+    }
+}
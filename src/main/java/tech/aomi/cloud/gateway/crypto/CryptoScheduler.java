@@ -0,0 +1,100 @@
+package tech.aomi.cloud.gateway.crypto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.common.exception.ServiceException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RSA 等耗时加解密任务专用线程池
+ * 线程数与CPU核数一致, 队列有界, 避免在 Netty IO 线程上执行签名、验签、解密阻塞其他连接
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Component
+public class CryptoScheduler implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+
+    private final Scheduler scheduler;
+
+    public CryptoScheduler(GatewayProperties properties, MeterRegistry meterRegistry) {
+        CryptoEngine.init();
+        GatewayProperties.Crypto config = properties.getCrypto();
+        int threads = config.getThreads() > 0 ? config.getThreads() : Runtime.getRuntime().availableProcessors();
+
+        Timer waitTimer = Timer.builder("gateway.crypto.wait")
+                .description("加解密任务排队等待时间")
+                .register(meterRegistry);
+        Counter rejected = Counter.builder("gateway.crypto.rejected")
+                .description("队列已满被拒绝的加解密任务数")
+                .register(meterRegistry);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("gateway-crypto-");
+        threadFactory.setDaemon(true);
+
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                threadFactory,
+                (r, e) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException("加解密任务队列已满");
+                }
+        ) {
+            @Override
+            public void execute(Runnable command) {
+                long enqueueAt = System.nanoTime();
+                super.execute(() -> {
+                    waitTimer.record(System.nanoTime() - enqueueAt, TimeUnit.NANOSECONDS);
+                    command.run();
+                });
+            }
+        };
+        this.scheduler = Schedulers.fromExecutorService(executor, "gateway-crypto");
+
+        Gauge.builder("gateway.crypto.queue.size", executor, e -> e.getQueue().size())
+                .description("等待执行的加解密任务数")
+                .register(meterRegistry);
+        Gauge.builder("gateway.crypto.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行的加解密任务数")
+                .register(meterRegistry);
+        LOGGER.info("加解密线程池: 线程数: {}, 队列长度: {}", threads, config.getQueueCapacity());
+    }
+
+    /**
+     * 在加解密线程池中执行任务
+     *
+     * @param task 任务
+     * @return 任务结果, 队列已满时返回 ServiceException
+     */
+    public <T> Mono<T> execute(Callable<T> task) {
+        return Mono.fromCallable(task)
+                .subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> new ServiceException("服务繁忙,请稍后重试", e));
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,289 @@
+package tech.aomi.cloud.gateway.crypto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Value;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.constant.Common;
+import tech.aomi.cloud.gateway.controller.SignType;
+import tech.aomi.common.utils.crypto.RSA;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * 解析后的秘钥缓存
+ * 以 客户端ID + 秘钥类型 + 秘钥字符串指纹 为key, 缓存可以直接使用的 PublicKey/PrivateKey
+ * 秘钥字符串变化后指纹随之变化,不会使用到旧的秘钥
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Component
+public class KeyCache {
+
+    /**
+     * secp256r1 曲线参数
+     */
+    private static final ECParameterSpec P256 = p256();
+
+    private final Cache<KeyId, ParsedKey> keys;
+
+    public KeyCache(GatewayProperties properties) {
+        GatewayProperties.ClientCache config = properties.getClientCache();
+        // 每个客户端通常有公钥、私钥两个秘钥
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize() * 2)
+                .expireAfterAccess(config.getExpireAfterWrite())
+                .build();
+    }
+
+    /**
+     * 获取公钥
+     *
+     * @param clientId  客户端ID, 可以为空
+     * @param base64Key Base64格式的公钥
+     * @return 公钥
+     * @throws GeneralSecurityException 秘钥格式错误
+     */
+    public PublicKey publicKey(String clientId, String base64Key) throws GeneralSecurityException {
+        return (PublicKey) get(clientId, KeyType.RSA_PUBLIC, base64Key);
+    }
+
+    /**
+     * 获取私钥
+     *
+     * @param clientId  客户端ID, 可以为空
+     * @param base64Key Base64格式的私钥
+     * @return 私钥
+     * @throws GeneralSecurityException 秘钥格式错误
+     */
+    public PrivateKey privateKey(String clientId, String base64Key) throws GeneralSecurityException {
+        return (PrivateKey) get(clientId, KeyType.RSA_PRIVATE, base64Key);
+    }
+
+    /**
+     * 获取 HMAC 秘钥
+     *
+     * @param clientId     客户端ID, 可以为空
+     * @param base64Secret Base64格式的共享秘钥
+     * @return HMAC 秘钥
+     * @throws GeneralSecurityException 秘钥格式错误
+     */
+    public SecretKey hmacKey(String clientId, String base64Secret) throws GeneralSecurityException {
+        return (SecretKey) get(clientId, KeyType.HMAC_SHA256, base64Secret);
+    }
+
+    /**
+     * 获取 X25519 公钥
+     *
+     * @param clientId  客户端ID, 可以为空
+     * @param base64Key Base64格式的公钥
+     * @return 公钥
+     * @throws GeneralSecurityException 秘钥格式错误
+     */
+    public PublicKey x25519PublicKey(String clientId, String base64Key) throws GeneralSecurityException {
+        return (PublicKey) get(clientId, KeyType.X25519_PUBLIC, base64Key);
+    }
+
+    /**
+     * 获取 X25519 私钥
+     *
+     * @param clientId  客户端ID, 可以为空
+     * @param base64Key Base64格式的私钥
+     * @return 私钥
+     * @throws GeneralSecurityException 秘钥格式错误
+     */
+    public PrivateKey x25519PrivateKey(String clientId, String base64Key) throws GeneralSecurityException {
+        return (PrivateKey) get(clientId, KeyType.X25519_PRIVATE, base64Key);
+    }
+
+    /**
+     * 获取签名使用的秘钥
+     *
+     * @param clientId  客户端ID, 可以为空
+     * @param signType  签名方式
+     * @param base64Key Base64格式的私钥或共享秘钥
+     * @return 签名秘钥
+     * @throws GeneralSecurityException 秘钥格式错误
+     */
+    public Key signKey(String clientId, SignType signType, String base64Key) throws GeneralSecurityException {
+        switch (signType) {
+            case HMAC_SHA256:
+                return get(clientId, KeyType.HMAC_SHA256, base64Key);
+            case ED25519:
+                return get(clientId, KeyType.ED25519_PRIVATE, base64Key);
+            case ECDSA_P256:
+                return get(clientId, KeyType.EC_P256_PRIVATE, base64Key);
+            default:
+                return get(clientId, KeyType.RSA_PRIVATE, base64Key);
+        }
+    }
+
+    /**
+     * 获取验签使用的秘钥
+     *
+     * @param clientId  客户端ID, 可以为空
+     * @param signType  签名方式
+     * @param base64Key Base64格式的公钥或共享秘钥
+     * @return 验签秘钥
+     * @throws GeneralSecurityException 秘钥格式错误
+     */
+    public Key verifyKey(String clientId, SignType signType, String base64Key) throws GeneralSecurityException {
+        switch (signType) {
+            case HMAC_SHA256:
+                return get(clientId, KeyType.HMAC_SHA256, base64Key);
+            case ED25519:
+                return get(clientId, KeyType.ED25519_PUBLIC, base64Key);
+            case ECDSA_P256:
+                return get(clientId, KeyType.EC_P256_PUBLIC, base64Key);
+            default:
+                return get(clientId, KeyType.RSA_PUBLIC, base64Key);
+        }
+    }
+
+    /**
+     * 删除客户端的所有秘钥
+     *
+     * @param clientId 客户端ID
+     */
+    public void evict(String clientId) {
+        keys.asMap().keySet().removeIf(id -> id.getClientId().equals(clientId));
+    }
+
+    private static ECParameterSpec p256() {
+        try {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec("secp256r1"));
+            return parameters.getParameterSpec(ECParameterSpec.class);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("不支持 secp256r1 曲线", e);
+        }
+    }
+
+    private Key get(String clientId, KeyType type, String base64Key) throws GeneralSecurityException {
+        if (StringUtils.isEmpty(base64Key)) {
+            throw new InvalidKeyException("秘钥为空");
+        }
+        // String 的 hashCode 会缓存在对象中, 缓存的客户端信息每次计算指纹没有额外开销
+        KeyId id = new KeyId(StringUtils.defaultString(clientId), type, base64Key.hashCode());
+        ParsedKey parsed = keys.getIfPresent(id);
+        if (null != parsed && parsed.getSource().equals(base64Key)) {
+            return parsed.getKey();
+        }
+        Key key = type.parse(base64Key);
+        keys.put(id, new ParsedKey(base64Key, key));
+        return key;
+    }
+
+    enum KeyType {
+        RSA_PUBLIC {
+            @Override
+            Key parse(String base64Key) throws GeneralSecurityException {
+                return RSA.parsePublicKeyWithBase64(base64Key);
+            }
+        },
+        RSA_PRIVATE {
+            @Override
+            Key parse(String base64Key) throws GeneralSecurityException {
+                return RSA.parsePrivateKeyWithBase64(base64Key);
+            }
+        },
+        HMAC_SHA256 {
+            @Override
+            Key parse(String base64Key) throws GeneralSecurityException {
+                return new SecretKeySpec(decode(base64Key), Common.HMAC_SHA256_ALGORITHM);
+            }
+        },
+        ED25519_PUBLIC {
+            @Override
+            Key parse(String base64Key) throws GeneralSecurityException {
+                return KeyFactory.getInstance(Common.ED25519_SIGN_ALGORITHM).generatePublic(new X509EncodedKeySpec(decode(base64Key)));
+            }
+        },
+        ED25519_PRIVATE {
+            @Override
+            Key parse(String base64Key) throws GeneralSecurityException {
+                return KeyFactory.getInstance(Common.ED25519_SIGN_ALGORITHM).generatePrivate(new PKCS8EncodedKeySpec(decode(base64Key)));
+            }
+        },
+        EC_P256_PUBLIC {
+            @Override
+            Key parse(String base64Key) throws GeneralSecurityException {
+                ECPublicKey key = (ECPublicKey) KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(decode(base64Key)));
+                checkP256(key.getParams());
+                return key;
+            }
+        },
+        EC_P256_PRIVATE {
+            @Override
+            Key parse(String base64Key) throws GeneralSecurityException {
+                ECPrivateKey key = (ECPrivateKey) KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(decode(base64Key)));
+                checkP256(key.getParams());
+                return key;
+            }
+        },
+        X25519_PUBLIC {
+            @Override
+            Key parse(String base64Key) throws GeneralSecurityException {
+                return KeyFactory.getInstance(Common.X25519_ALGORITHM).generatePublic(new X509EncodedKeySpec(decode(base64Key)));
+            }
+        },
+        X25519_PRIVATE {
+            @Override
+            Key parse(String base64Key) throws GeneralSecurityException {
+                return KeyFactory.getInstance(Common.X25519_ALGORITHM).generatePrivate(new PKCS8EncodedKeySpec(decode(base64Key)));
+            }
+        };
+
+        abstract Key parse(String base64Key) throws GeneralSecurityException;
+
+        private static byte[] decode(String base64Key) throws InvalidKeyException {
+            try {
+                return Base64.getDecoder().decode(base64Key);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidKeyException("秘钥不是Base64格式", e);
+            }
+        }
+
+        /**
+         * 曲线、基点、阶、余因子都与 secp256r1 一致, 其他 256 位曲线(secp256k1、brainpoolP256r1 等)不能通过
+         */
+        private static void checkP256(ECParameterSpec params) throws InvalidKeyException {
+            if (!P256.getCurve().equals(params.getCurve())
+                    || !P256.getGenerator().equals(params.getGenerator())
+                    || !P256.getOrder().equals(params.getOrder())
+                    || P256.getCofactor() != params.getCofactor()) {
+                throw new InvalidKeyException("仅支持 P-256 曲线");
+            }
+        }
+    }
+
+    @Value
+    private static class KeyId {
+        String clientId;
+        KeyType type;
+        int fingerprint;
+    }
+
+    @Value
+    private static class ParsedKey {
+        String source;
+        Key key;
+    }
+}
@@ -0,0 +1,117 @@
+package tech.aomi.cloud.gateway.crypto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import tech.aomi.cloud.gateway.GatewayProperties;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 网关向客户端发送请求时使用的 trk 复用窗口
+ * 客户端开启复用后, 同一个 trk 及其 RSA 密文在 N 秒内或 M 次请求内重复使用, 之后重新生成
+ * 客户端公钥变化时立即重新生成
+ * 复用窗口结束时只有一个调用方重新生成, 其他调用方等待后使用新的 trk; 缓存中的 trk 不对外暴露, 也不会被修改
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Component
+public class OutboundTrkCache {
+
+    private final Cache<String, Entry> entries;
+
+    public OutboundTrkCache(GatewayProperties properties) {
+        GatewayProperties.ClientCache config = properties.getClientCache();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .build();
+    }
+
+    /**
+     * 获取可以复用的 trk, 复用窗口结束后使用 generator 生成新的 trk
+     *
+     * @param clientId  客户端ID
+     * @param publicKey 加密 trk 使用的客户端公钥
+     * @param seconds   复用时间, 秒
+     * @param count     最多使用次数, 小于等于0时不限制
+     * @param generator 生成新的 trk
+     * @return trk 副本
+     * @throws GeneralSecurityException 生成 trk 失败
+     */
+    public OutboundTrk get(String clientId, String publicKey, int seconds, int count, Generator generator) throws GeneralSecurityException {
+        Entry entry = entries.getIfPresent(clientId);
+        if (null != entry && entry.acquire(System.nanoTime(), publicKey)) {
+            return entry.trk.copy();
+        }
+
+        GeneralSecurityException[] error = new GeneralSecurityException[1];
+        entry = entries.asMap().compute(clientId, (k, current) -> {
+            long now = System.nanoTime();
+            // 等待期间其他调用方已经重新生成
+            if (null != current && current.acquire(now, publicKey)) {
+                return current;
+            }
+            try {
+                // 新生成的 trk 本次使用一次
+                return new Entry(generator.generate(), publicKey, now + TimeUnit.SECONDS.toNanos(seconds), count > 0 ? new AtomicInteger(count - 1) : null);
+            } catch (GeneralSecurityException e) {
+                error[0] = e;
+                return current;
+            }
+        });
+        if (null != error[0]) {
+            throw error[0];
+        }
+        return entry.trk.copy();
+    }
+
+    @FunctionalInterface
+    public interface Generator {
+        OutboundTrk generate() throws GeneralSecurityException;
+    }
+
+    /**
+     * trk 明文及使用客户端公钥加密后的密文
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class OutboundTrk {
+
+        private final byte[] trk;
+
+        /**
+         * Base64编码的密文
+         */
+        private final String ciphertext;
+
+        OutboundTrk copy() {
+            return new OutboundTrk(trk.clone(), ciphertext);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+
+        private final OutboundTrk trk;
+
+        private final String publicKey;
+
+        private final long expireAt;
+
+        /**
+         * 剩余使用次数, 为空时不限制
+         */
+        private final AtomicInteger remaining;
+
+        boolean acquire(long now, String publicKey) {
+            if (now - expireAt >= 0 || !this.publicKey.equals(publicKey)) {
+                return false;
+            }
+            return null == remaining || remaining.getAndDecrement() > 0;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package tech.aomi.cloud.gateway.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * 签名数据
+ * 由多个字符片段组成时不拼接字符串, 计算签名时按字符集分段编码后直接更新到 Signature、Mac 中
+ * 编码结果与拼接后调用 {@link String#getBytes(Charset)} 一致, 为空的片段按 "null" 拼接, 无法编码的字符使用字符集默认的替换字符
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public final class SignData {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final String NULL = "null";
+
+    private static final ThreadLocal<CharBuffer> CHARS = ThreadLocal.withInitial(() -> CharBuffer.allocate(CHUNK_SIZE));
+
+    private static final ThreadLocal<ByteBuffer> BYTES = ThreadLocal.withInitial(() -> ByteBuffer.allocate(CHUNK_SIZE));
+
+    private final byte[] data;
+
+    private final Charset charset;
+
+    private final CharSequence[] parts;
+
+    private SignData(byte[] data, Charset charset, CharSequence[] parts) {
+        this.data = data;
+        this.charset = charset;
+        this.parts = parts;
+    }
+
+    /**
+     * @param data 已编码的签名数据
+     */
+    public static SignData of(byte[] data) {
+        return new SignData(data, null, null);
+    }
+
+    /**
+     * @param charset 字符集
+     * @param parts   按顺序组成签名数据的字符片段, 为空的片段与字符串拼接一致, 按 "null" 处理
+     */
+    public static SignData of(Charset charset, CharSequence... parts) {
+        return new SignData(null, charset, parts);
+    }
+
+    /**
+     * 去掉首尾空白字符, 与 {@link String#trim()} 规则一致, 不复制字符
+     *
+     * @return 为空时返回空字符串
+     */
+    public static CharSequence trim(CharSequence value) {
+        if (null == value) {
+            return "";
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (start < end && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return start == 0 && end == value.length() ? value : CharBuffer.wrap(value, start, end);
+    }
+
+    /**
+     * 把签名数据分段更新到签名计算中
+     * 使用当前线程的缓冲区, 不能在 updater 中再次调用
+     */
+    public void update(Updater updater) throws GeneralSecurityException {
+        if (null != data) {
+            updater.update(data, 0, data.length);
+            return;
+        }
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer in = CHARS.get();
+        ByteBuffer out = BYTES.get();
+        in.clear();
+        out.clear();
+        // 缓冲区中使用过的长度, 只清除这部分; 出错时清除整个缓冲区
+        int chars = 0;
+        int bytes = 0;
+        boolean completed = false;
+        try {
+            for (CharSequence p : parts) {
+                CharSequence part = null == p ? NULL : p;
+                int length = part.length();
+                int offset = 0;
+                while (offset < length) {
+                    int n = Math.min(in.remaining(), length - offset);
+                    put(part, offset, n, in);
+                    offset += n;
+                    chars = Math.max(chars, in.position());
+                    if (!in.hasRemaining()) {
+                        bytes = Math.max(bytes, encode(encoder, in, out, false, updater));
+                    }
+                }
+            }
+            bytes = Math.max(bytes, encode(encoder, in, out, true, updater));
+            completed = true;
+        } finally {
+            // 缓冲区中可能有明文数据
+            Arrays.fill(in.array(), 0, completed ? chars : in.capacity(), '\0');
+            Arrays.fill(out.array(), 0, completed ? bytes : out.capacity(), (byte) 0);
+        }
+    }
+
+    /**
+     * @return 完整的签名数据
+     */
+    public byte[] toByteArray() {
+        if (null != data) {
+            return data;
+        }
+        return toString().getBytes(charset);
+    }
+
+    @Override
+    public String toString() {
+        if (null != data) {
+            return new String(data, charset());
+        }
+        StringBuilder builder = new StringBuilder();
+        for (CharSequence part : parts) {
+            builder.append(part);
+        }
+        return builder.toString();
+    }
+
+    private Charset charset() {
+        return null == charset ? Charset.defaultCharset() : charset;
+    }
+
+    private static void put(CharSequence part, int offset, int length, CharBuffer in) {
+        char[] dst = in.array();
+        int position = in.position();
+        if (part instanceof String) {
+            ((String) part).getChars(offset, offset + length, dst, position);
+        } else if (part instanceof CharBuffer && ((CharBuffer) part).hasArray()) {
+            CharBuffer src = (CharBuffer) part;
+            System.arraycopy(src.array(), src.arrayOffset() + src.position() + offset, dst, position, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                dst[position + i] = part.charAt(offset + i);
+            }
+        }
+        in.position(position + length);
+    }
+
+    /**
+     * 编码缓冲区中的字符, 末尾不完整的代理对保留到下一次编码
+     *
+     * @return 输出缓冲区使用过的最大长度
+     */
+    private static int encode(CharsetEncoder encoder, CharBuffer in, ByteBuffer out, boolean endOfInput, Updater updater) throws GeneralSecurityException {
+        int used = 0;
+        in.flip();
+        while (encoder.encode(in, out, endOfInput).isOverflow()) {
+            used = Math.max(used, drain(out, updater));
+        }
+        if (endOfInput) {
+            while (encoder.flush(out).isOverflow()) {
+                used = Math.max(used, drain(out, updater));
+            }
+        }
+        used = Math.max(used, drain(out, updater));
+        in.compact();
+        return used;
+    }
+
+    /**
+     * @return 输出的字节数
+     */
+    private static int drain(ByteBuffer out, Updater updater) throws GeneralSecurityException {
+        int used = out.position();
+        out.flip();
+        if (out.hasRemaining()) {
+            updater.update(out.array(), out.arrayOffset() + out.position(), out.remaining());
+        }
+        out.clear();
+        return used;
+    }
+
+    /**
+     * 签名计算, 通常为 Signature、Mac 的 update 方法
+     */
+    @FunctionalInterface
+    public interface Updater {
+        void update(byte[] data, int offset, int length) throws GeneralSecurityException;
+    }
+}
@@ -0,0 +1,137 @@
+package tech.aomi.cloud.gateway.crypto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.constant.CacheKey;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 传输秘钥解密结果缓存
+ * 以 客户端ID + 传输秘钥密文的 SHA-256 为key, 缓存解密后的传输秘钥, 重复使用同一个 trk 时不需要再做 RSA 解密
+ * 缓存中的数组只返回副本, 缓存项删除时清除; 复制与清除使用同一个锁, 已清除的缓存项按未命中处理
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Component
+public class TrkCache {
+
+    private final boolean enabled;
+
+    private final Cache<TrkId, Trk> trks;
+
+    @Autowired
+    public TrkCache(GatewayProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param ticker   过期使用的时钟
+     * @param executor 删除监听器使用的线程池
+     */
+    public TrkCache(GatewayProperties properties, MeterRegistry meterRegistry, Ticker ticker, Executor executor) {
+        GatewayProperties.TrkCache config = properties.getTrkCache();
+        this.enabled = config.isEnabled();
+        this.trks = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl())
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .<TrkId, Trk>removalListener((id, trk, cause) -> {
+                    if (null != trk) {
+                        trk.destroy();
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, trks, CacheKey.TRK);
+    }
+
+    /**
+     * 获取传输秘钥明文, 未命中时解密并缓存
+     *
+     * @param clientId   客户端ID
+     * @param ciphertext 传输秘钥密文
+     * @param decryptor  解密方法
+     * @return 传输秘钥明文副本
+     * @throws GeneralSecurityException 解密失败
+     */
+    public byte[] get(String clientId, byte[] ciphertext, Decryptor decryptor) throws GeneralSecurityException {
+        if (!enabled) {
+            return decryptor.decrypt(ciphertext);
+        }
+        TrkId id = new TrkId(clientId, ByteBuffer.wrap(CryptoEngine.sha256(ciphertext)));
+        Trk cached = trks.getIfPresent(id);
+        byte[] trk = null == cached ? null : cached.copy();
+        if (null != trk) {
+            return trk;
+        }
+        trk = decryptor.decrypt(ciphertext);
+        // 写入后可能立即被删除并清除, 先复制
+        byte[] copy = trk.clone();
+        trks.put(id, new Trk(trk));
+        return copy;
+    }
+
+    /**
+     * 删除客户端的所有传输秘钥
+     *
+     * @param clientId 客户端ID
+     */
+    public void evict(String clientId) {
+        trks.asMap().keySet().removeIf(id -> id.getClientId().equals(clientId));
+    }
+
+    @FunctionalInterface
+    public interface Decryptor {
+        /**
+         * @param ciphertext 传输秘钥密文
+         * @return 传输秘钥明文, 启用缓存时数组由缓存持有, 删除时清除
+         * @throws GeneralSecurityException 解密失败
+         */
+        byte[] decrypt(byte[] ciphertext) throws GeneralSecurityException;
+    }
+
+    /**
+     * 缓存的传输秘钥明文
+     */
+    private static class Trk {
+
+        private final byte[] key;
+
+        private boolean destroyed;
+
+        Trk(byte[] key) {
+            this.key = key;
+        }
+
+        /**
+         * @return 明文副本, 已清除时返回 null
+         */
+        synchronized byte[] copy() {
+            return destroyed ? null : key.clone();
+        }
+
+        synchronized void destroy() {
+            destroyed = true;
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    @Value
+    private static class TrkId {
+        String clientId;
+        ByteBuffer digest;
+    }
+}
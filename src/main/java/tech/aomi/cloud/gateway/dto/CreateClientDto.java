@@ -2,6 +2,7 @@ package tech.aomi.cloud.gateway.dto;
 
 import lombok.Getter;
 import lombok.Setter;
+import tech.aomi.cloud.gateway.controller.SignType;
 
 import javax.validation.constraints.NotEmpty;
 import java.util.Map;
@@ -32,6 +33,72 @@ public class CreateClientDto implements java.io.Serializable {
     private String publicKey;
     private String privateKey;
 
+    /**
+     * HMAC 签名共享秘钥, Base64格式
+     */
+    private String hmacSecret;
+
+    /**
+     * 客户端 Ed25519 公钥, X.509 格式 Base64编码
+     */
+    private String clientEd25519PublicKey;
+
+    /**
+     * 服务端 Ed25519 公钥
+     */
+    private String ed25519PublicKey;
+
+    /**
+     * 服务端 Ed25519 私钥, PKCS#8 格式 Base64编码
+     */
+    private String ed25519PrivateKey;
+
+    /**
+     * 客户端 ECDSA P-256 公钥, X.509 格式 Base64编码
+     */
+    private String clientEcPublicKey;
+
+    /**
+     * 服务端 ECDSA P-256 公钥
+     */
+    private String ecPublicKey;
+
+    /**
+     * 服务端 ECDSA P-256 私钥, PKCS#8 格式 Base64编码
+     */
+    private String ecPrivateKey;
+
+    /**
+     * 客户端 X25519 公钥, X.509 格式 Base64编码, 3.0.0 版本报文使用
+     */
+    private String clientX25519PublicKey;
+
+    /**
+     * 服务端 X25519 公钥
+     */
+    private String x25519PublicKey;
+
+    /**
+     * 服务端 X25519 私钥, PKCS#8 格式 Base64编码
+     */
+    private String x25519PrivateKey;
+
+    /**
+     * 网关向该客户端发送请求时使用的签名方式, 为空时使用RSA
+     */
+    private SignType signType;
+
+    /**
+     * 网关向该客户端发送请求时 trk 的复用时间, 秒
+     * 为空或小于等于0时每次请求生成新的 trk
+     */
+    private Integer trkReuseSeconds;
+
+    /**
+     * 复用时间内同一个 trk 最多使用次数, 为空或小于等于0时不限制次数
+     */
+    private Integer trkReuseCount;
+
     @NotEmpty
     private String platform;
 }
@@ -2,6 +2,7 @@ package tech.aomi.cloud.gateway.entity;
 
 import lombok.Getter;
 import lombok.Setter;
+import tech.aomi.cloud.gateway.controller.SignType;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.util.Date;
@@ -50,6 +51,72 @@ public class Client implements java.io.Serializable {
      */
     private String privateKey;
 
+    /**
+     * HMAC 签名共享秘钥, Base64格式
+     */
+    private String hmacSecret;
+
+    /**
+     * 客户端 Ed25519 公钥, X.509 格式 Base64编码
+     */
+    private String clientEd25519PublicKey;
+
+    /**
+     * 服务端 Ed25519 公钥
+     */
+    private String ed25519PublicKey;
+
+    /**
+     * 服务端 Ed25519 私钥, PKCS#8 格式 Base64编码
+     */
+    private String ed25519PrivateKey;
+
+    /**
+     * 客户端 ECDSA P-256 公钥, X.509 格式 Base64编码
+     */
+    private String clientEcPublicKey;
+
+    /**
+     * 服务端 ECDSA P-256 公钥
+     */
+    private String ecPublicKey;
+
+    /**
+     * 服务端 ECDSA P-256 私钥, PKCS#8 格式 Base64编码
+     */
+    private String ecPrivateKey;
+
+    /**
+     * 客户端 X25519 公钥, X.509 格式 Base64编码, 3.0.0 版本报文使用
+     */
+    private String clientX25519PublicKey;
+
+    /**
+     * 服务端 X25519 公钥
+     */
+    private String x25519PublicKey;
+
+    /**
+     * 服务端 X25519 私钥, PKCS#8 格式 Base64编码
+     */
+    private String x25519PrivateKey;
+
+    /**
+     * 网关向该客户端发送请求时使用的签名方式, 为空时使用RSA
+     */
+    private SignType signType;
+
+    /**
+     * 网关向该客户端发送请求时 trk 的复用时间, 秒
+     * 为空或小于等于0时每次请求生成新的 trk
+     */
+    private Integer trkReuseSeconds;
+
+    /**
+     * 复用时间内同一个 trk 最多使用次数, 为空或小于等于0时不限制次数
+     */
+    private Integer trkReuseCount;
+
     /**
      * 所属平台
      */
@@ -59,4 +126,10 @@ public class Client implements java.io.Serializable {
      * 创建时间
      */
     private Date createAt;
+
+    /**
+     * 最后修改时间
+     * 用于轮询方式同步客户端缓存
+     */
+    private Date updateAt;
 }
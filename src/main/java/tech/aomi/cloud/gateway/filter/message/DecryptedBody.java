@@ -0,0 +1,57 @@
+package tech.aomi.cloud.gateway.filter.message;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 分段解密结果
+ * 请求参数明文直接写入 DataBuffer, 交给后端服务请求后由框架释放
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Getter
+@AllArgsConstructor
+public class DecryptedBody {
+
+    /**
+     * 传输秘钥明文
+     */
+    private final byte[] trk;
+
+    /**
+     * 请求参数明文
+     */
+    private final List<DataBuffer> payload;
+
+    /**
+     * @return 请求参数明文长度
+     */
+    public long length() {
+        long length = 0;
+        for (DataBuffer buffer : payload) {
+            length += buffer.readableByteCount();
+        }
+        return length;
+    }
+
+    /**
+     * 签名验证失败时清除传输秘钥并释放明文
+     */
+    public void destroy() {
+        Arrays.fill(trk, (byte) 0);
+        for (DataBuffer buffer : payload) {
+            ByteBuffer view = buffer.asByteBuffer(0, buffer.writePosition());
+            while (view.hasRemaining()) {
+                view.put((byte) 0);
+            }
+        }
+        payload.forEach(DataBufferUtils::release);
+        payload.clear();
+    }
+}
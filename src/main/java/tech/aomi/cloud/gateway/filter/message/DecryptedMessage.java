@@ -0,0 +1,39 @@
+package tech.aomi.cloud.gateway.filter.message;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 解密后的请求报文
+ * 解密结果不直接写入 {@link MessageContext}, 签名验证通过后才会使用, 验证失败时通过 {@link #destroy()} 清除明文
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Getter
+@AllArgsConstructor
+public class DecryptedMessage {
+
+    /**
+     * 传输秘钥明文
+     */
+    private final byte[] trk;
+
+    /**
+     * 请求参数明文, 请求参数为空时为空数组
+     */
+    private final byte[] payload;
+
+    /**
+     * 清除明文数据
+     */
+    public void destroy() {
+        if (null != trk) {
+            Arrays.fill(trk, (byte) 0);
+        }
+        if (null != payload) {
+            Arrays.fill(payload, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package tech.aomi.cloud.gateway.filter.message;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.json.async.NonBlockingJsonParser;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.controller.RequestMessage;
+import tech.aomi.cloud.gateway.controller.SignType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 请求报文流式解析
+ * 使用 Jackson 非阻塞解析器直接读取请求体 DataBuffer, 读取后立即释放, 不需要先合并整个请求体
+ * payload 从解析器的分段缓冲区直接写入字节数组, Base64 字符每个只占一个字节, 后续分段 Base64 解码、解密, 不再创建 String 及中间数组
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public final class EnvelopeDecoder {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private static final String BASE64_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/=";
+
+    private final NonBlockingJsonParser parser;
+
+    private final long maxLength;
+
+    private final RequestMessage message = new RequestMessage();
+
+    private byte[] input = new byte[0];
+
+    private long length;
+
+    private int depth;
+
+    private boolean started;
+
+    private boolean finished;
+
+    private String field;
+
+    private CharSequence payload;
+
+    private EnvelopeDecoder(long maxLength) throws IOException {
+        this.parser = (NonBlockingJsonParser) FACTORY.createNonBlockingByteArrayParser();
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * 解析请求报文
+     *
+     * @param body      请求体
+     * @param maxLength 请求体最大长度
+     * @return 请求报文
+     */
+    public static Mono<Envelope> decode(Flux<DataBuffer> body, long maxLength) {
+        return Mono.defer(() -> {
+            EnvelopeDecoder decoder;
+            try {
+                decoder = new EnvelopeDecoder(maxLength);
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            // 取消或出错时未读取的 DataBuffer 同样需要释放
+            return body.doOnNext(decoder::feed)
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .then(Mono.fromCallable(decoder::finish));
+        });
+    }
+
+    private void feed(DataBuffer buffer) {
+        try {
+            int n = buffer.readableByteCount();
+            length += n;
+            if (length > maxLength) {
+                throw new IllegalArgumentException("请求报文长度超出限制");
+            }
+            // 解析器在返回 NOT_AVAILABLE 后已经读取完输入, 可以重复使用同一个数组
+            if (input.length < n) {
+                input = new byte[n];
+            }
+            buffer.read(input, 0, n);
+            ByteArrayFeeder feeder = parser.getNonBlockingInputFeeder();
+            feeder.feedInput(input, 0, n);
+            drain();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("请求报文格式不正确", e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private Envelope finish() throws IOException {
+        if (0 == length) {
+            throw new IllegalArgumentException("Required request body is missing");
+        }
+        parser.getNonBlockingInputFeeder().endOfInput();
+        try {
+            drain();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("请求报文格式不正确", e);
+        } finally {
+            parser.close();
+        }
+        if (!finished) {
+            throw new IllegalArgumentException("请求报文格式不正确");
+        }
+        return new Envelope(message, payload);
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (null != (token = parser.nextToken()) && JsonToken.NOT_AVAILABLE != token) {
+            if (finished) {
+                throw new IllegalArgumentException("请求报文格式不正确");
+            }
+            switch (token) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    if (!started && JsonToken.START_OBJECT != token) {
+                        throw new IllegalArgumentException("请求报文格式不正确");
+                    }
+                    started = true;
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    finished = 0 == depth;
+                    break;
+                case FIELD_NAME:
+                    if (1 == depth) {
+                        field = parser.getCurrentName();
+                    }
+                    break;
+                default:
+                    if (1 == depth) {
+                        value(token);
+                    }
+            }
+        }
+    }
+
+    private void value(JsonToken token) throws IOException {
+        if ("payload".equals(field)) {
+            payload = JsonToken.VALUE_STRING == token ? payload() : null;
+            return;
+        }
+        String value = JsonToken.VALUE_NULL == token ? null : parser.getText();
+        switch (field) {
+            case "clientId":
+                message.setClientId(value);
+                break;
+            case "trk":
+                message.setTrk(value);
+                break;
+            case "epk":
+                message.setEpk(value);
+                break;
+            case "sessionId":
+                message.setSessionId(value);
+                break;
+            case "timestamp":
+                message.setTimestamp(value);
+                break;
+            case "randomString":
+                message.setRandomString(value);
+                break;
+            case "charset":
+                message.setCharset(value);
+                break;
+            case "signType":
+                message.setSignType(null == value ? null : SignType.of(value));
+                break;
+            case "sign":
+                message.setSign(value);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * 非阻塞解析器会把整个字符串读入内部分段缓冲区后才返回, 逐段写入字节数组, 不合并分段、不复制字符
+     * 包含非 ASCII 字符时不是 Base64, 使用 String 交给后续校验拒绝
+     */
+    private CharSequence payload() throws IOException {
+        AsciiWriter writer = new AsciiWriter(parser.getTextLength());
+        parser.getText(writer);
+        return writer.ascii ? new AsciiText(writer.bytes) : parser.getText();
+    }
+
+    /**
+     * Base64 字符在该字符集下的编码是否与 ASCII 相同, 相同时可以直接按字节计算签名数据
+     */
+    public static boolean isBase64Compatible(Charset charset) {
+        return Arrays.equals(BASE64_CHARS.getBytes(charset), BASE64_CHARS.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 解析结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Envelope {
+
+        /**
+         * 请求报文, payload 为空
+         */
+        private final RequestMessage message;
+
+        /**
+         * payload 密文, 没有 payload 时为空
+         */
+        private final CharSequence payload;
+
+        /**
+         * 是否可以分段解密
+         * payload 为 Base64 字符, 字符集需要与 ASCII 兼容才能直接按字节计算签名数据
+         */
+        public boolean isStreamable() {
+            if (null == payload) {
+                return false;
+            }
+            try {
+                return isBase64Compatible(message.charset());
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        /**
+         * 不能分段解密时转换为普通请求报文
+         */
+        public RequestMessage toRequestMessage() {
+            if (null != payload) {
+                message.setPayload(payload.toString());
+            }
+            return message;
+        }
+    }
+
+    private static final class AsciiWriter extends Writer {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private boolean ascii = true;
+
+        AsciiWriter(int length) {
+            this.bytes = new byte[length];
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            for (int i = 0; ascii && i < len; i++) {
+                write(cbuf[off + i]);
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            for (int i = 0; ascii && i < len; i++) {
+                write(str.charAt(off + i));
+            }
+        }
+
+        private void write(char c) {
+            ascii = c < 0x80;
+            bytes[position++] = (byte) c;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 只包含 ASCII 字符的文本, 每个字符占一个字节
+     */
+    private static final class AsciiText implements CharSequence {
+
+        private final byte[] bytes;
+
+        private final int offset;
+
+        private final int length;
+
+        AsciiText(byte[] bytes) {
+            this(bytes, 0, bytes.length);
+        }
+
+        private AsciiText(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) bytes[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException();
+            }
+            return new AsciiText(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package tech.aomi.cloud.gateway.filter.message;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import tech.aomi.cloud.gateway.crypto.SignData;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 响应报文流式写入
+ * 报文直接写入 DataBuffer, payload 密文分段 Base64 编码, 编码结果同时更新到签名计算中
+ * 字段顺序、空值字段与 {@link tech.aomi.cloud.gateway.controller.ResponseMessage} 通过 BodyInserterContext 默认编码器序列化的结果一致, 空值输出 null
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public final class EnvelopeWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 每次 Base64 编码的字节数, 3 的倍数
+     */
+    private static final int ENCODE_SIZE = BUFFER_SIZE / 4 * 3;
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 字符串字段与默认编码器使用相同的转义规则, 补充平面字符(例如 emoji)转义为 UTF-16 代理对
+     */
+    private static final ObjectWriter STRING_WRITER = Jackson2ObjectMapperBuilder.json().build().writerFor(String.class);
+
+    private final DataBufferFactory bufferFactory;
+
+    private final List<DataBuffer> buffers = new ArrayList<>();
+
+    private final byte[] pending = new byte[ENCODE_SIZE];
+
+    private final byte[] encoded = new byte[BUFFER_SIZE];
+
+    private int pendingLength;
+
+    private boolean empty = true;
+
+    public EnvelopeWriter(DataBufferFactory bufferFactory) {
+        this.bufferFactory = bufferFactory;
+        write('{');
+    }
+
+    /**
+     * 写入字符串字段, 值为空时输出 null
+     */
+    public EnvelopeWriter field(String name, String value) {
+        name(name);
+        write(null == value ? NULL : quote(value));
+        return this;
+    }
+
+    /**
+     * 写入布尔字段, 值为空时输出 null
+     */
+    public EnvelopeWriter field(String name, Boolean value) {
+        name(name);
+        write(null == value ? NULL : value.toString().getBytes(StandardCharsets.US_ASCII));
+        return this;
+    }
+
+    /**
+     * 开始写入 payload 字段
+     */
+    public EnvelopeWriter startPayload(String name) {
+        name(name);
+        write('"');
+        return this;
+    }
+
+    /**
+     * 写入 payload 密文, 不足 3 字节的部分等待后续数据
+     *
+     * @param digest Base64 编码结果同时更新到签名计算
+     */
+    public void payload(byte[] data, int offset, int length, SignData.Updater digest) throws GeneralSecurityException {
+        while (length > 0) {
+            int n = Math.min(length, ENCODE_SIZE - pendingLength);
+            System.arraycopy(data, offset, pending, pendingLength, n);
+            pendingLength += n;
+            offset += n;
+            length -= n;
+            if (pendingLength == ENCODE_SIZE) {
+                encode(digest);
+            }
+        }
+    }
+
+    /**
+     * 结束 payload 字段, 剩余数据编码并补齐
+     */
+    public EnvelopeWriter endPayload(SignData.Updater digest) throws GeneralSecurityException {
+        if (pendingLength > 0) {
+            encode(digest);
+        }
+        write('"');
+        return this;
+    }
+
+    /**
+     * @return 完整的报文, 由调用方写出后释放
+     */
+    public List<DataBuffer> end() {
+        write('}');
+        return buffers;
+    }
+
+    /**
+     * 写入失败时释放已分配的 DataBuffer
+     */
+    public void release() {
+        buffers.forEach(DataBufferUtils::release);
+        buffers.clear();
+    }
+
+    private void encode(SignData.Updater digest) throws GeneralSecurityException {
+        byte[] src = pendingLength == ENCODE_SIZE ? pending : Arrays.copyOf(pending, pendingLength);
+        int n = Base64.getEncoder().encode(src, encoded);
+        pendingLength = 0;
+        digest.update(encoded, 0, n);
+        write(encoded, 0, n);
+    }
+
+    private static byte[] quote(String value) {
+        try {
+            return STRING_WRITER.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void name(String name) {
+        if (!empty) {
+            write(',');
+        }
+        empty = false;
+        write('"');
+        write(name.getBytes(StandardCharsets.US_ASCII));
+        write('"');
+        write(':');
+    }
+
+    private void write(char c) {
+        current().write((byte) c);
+    }
+
+    private void write(byte[] data) {
+        write(data, 0, data.length);
+    }
+
+    private void write(byte[] data, int offset, int length) {
+        while (length > 0) {
+            DataBuffer buffer = current();
+            int n = Math.min(length, buffer.writableByteCount());
+            buffer.write(data, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    private DataBuffer current() {
+        DataBuffer buffer = buffers.isEmpty() ? null : buffers.get(buffers.size() - 1);
+        if (null == buffer || buffer.writableByteCount() == 0) {
+            buffer = bufferFactory.allocateBuffer(BUFFER_SIZE);
+            buffers.add(buffer);
+        }
+        return buffer;
+    }
+}
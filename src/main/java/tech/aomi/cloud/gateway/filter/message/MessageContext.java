@@ -2,8 +2,13 @@ package tech.aomi.cloud.gateway.filter.message;
 
 import lombok.Getter;
 import lombok.Setter;
+import tech.aomi.cloud.gateway.cache.ClientSnapshot;
+import tech.aomi.cloud.gateway.constant.MessageVersion;
 import tech.aomi.cloud.gateway.controller.RequestMessage;
 import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.session.Session;
+
+import java.nio.charset.Charset;
 
 /**
  * 请求报文上下文
@@ -16,8 +21,14 @@ public class MessageContext {
 
     public static final String MESSAGE_CONTEXT = "AOMI@MESSAGE_CONTEXT";
 
+    /**
+     * 报文版本
+     */
+    private MessageVersion version = MessageVersion.LATEST;
+
     /**
      * 传输秘钥明文
+     * 3.0.0 版本为秘钥协商派生的 AES-GCM 秘钥
      */
     private byte[] trk;
 
@@ -26,10 +37,50 @@ public class MessageContext {
      */
     private byte[] payload;
 
+    /**
+     * 流式解析时的 payload 密文, 此时 requestMessage.payload 为空
+     */
+    private CharSequence payloadText;
+
     /**
      * 客户端信息
      */
     private Client client;
 
+    /**
+     * 客户端快照, 包含解析后的秘钥及固定请求头、响应头
+     */
+    private ClientSnapshot snapshot;
+
     private RequestMessage requestMessage;
+
+    /**
+     * 报文引用的会话, 未使用会话时为空
+     */
+    private Session session;
+
+    /**
+     * 请求报文字符集, 初始化时解析一次
+     */
+    private Charset charset;
+
+    /**
+     * 请求时间毫秒数, 初始化时解析一次
+     */
+    private long requestTime;
+
+    /**
+     * randomString 是否已记录, 签名验证通过后记录一次
+     */
+    private boolean nonceRecorded;
+
+    /**
+     * 响应报文是否可以分段加密、签名
+     * 3.0.0 版本使用 AES-GCM 整体加密, 字符集与 ASCII 不兼容时签名数据不能直接使用 Base64 字节
+     */
+    public boolean isStreamable() {
+        return MessageVersion.V3_0_0 != version
+                && null != charset
+                && EnvelopeDecoder.isBase64Compatible(charset);
+    }
 }
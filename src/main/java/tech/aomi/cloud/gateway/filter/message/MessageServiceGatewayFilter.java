@@ -12,6 +12,7 @@ import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyEncod
 import org.springframework.cloud.gateway.support.BodyInserterContext;
 import org.springframework.core.Ordered;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ReactiveHttpOutputMessage;
@@ -25,14 +26,23 @@ import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import tech.aomi.cloud.gateway.GatewayProperties;
 import tech.aomi.cloud.gateway.api.MessageService;
+import tech.aomi.cloud.gateway.constant.Header;
+import tech.aomi.cloud.gateway.constant.MessageVersion;
 import tech.aomi.cloud.gateway.controller.RequestMessage;
+import tech.aomi.cloud.gateway.crypto.CryptoScheduler;
+import tech.aomi.cloud.gateway.guard.SignatureFailureGuard;
+import tech.aomi.common.exception.SignatureException;
 import tech.aomi.common.utils.json.Json;
 
 import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * 报文服务网关过滤器
@@ -42,6 +52,11 @@ import java.util.Set;
 @Slf4j
 public class MessageServiceGatewayFilter implements GatewayFilter, Ordered {
 
+    /**
+     * 流式解析时除 payload 外其他字段允许的最大长度
+     */
+    private static final long MAX_ENVELOPE_OVERHEAD = 64 * 1024;
+
     private final List<HttpMessageReader<?>> messageReaders;
 
     private final Set<MessageBodyDecoder> messageBodyDecoders;
@@ -50,13 +65,25 @@ public class MessageServiceGatewayFilter implements GatewayFilter, Ordered {
 
     private final MessageService messageService;
 
+    private final CryptoScheduler cryptoScheduler;
+
+    private final SignatureFailureGuard signatureFailureGuard;
+
+    private final GatewayProperties properties;
+
     public MessageServiceGatewayFilter(
             MessageService messageService,
+            CryptoScheduler cryptoScheduler,
+            SignatureFailureGuard signatureFailureGuard,
+            GatewayProperties properties,
             List<HttpMessageReader<?>> messageReaders,
             Set<MessageBodyDecoder> messageBodyDecoders,
             Set<MessageBodyEncoder> messageBodyEncoders
     ) {
         this.messageService = messageService;
+        this.cryptoScheduler = cryptoScheduler;
+        this.signatureFailureGuard = signatureFailureGuard;
+        this.properties = properties;
         this.messageReaders = messageReaders;
         this.messageBodyDecoders = messageBodyDecoders;
         this.messageBodyEncoders = messageBodyEncoders;
@@ -68,27 +95,106 @@ public class MessageServiceGatewayFilter implements GatewayFilter, Ordered {
         exchange.getAttributes().put(MessageContext.MESSAGE_CONTEXT, context);
 
         ServerHttpRequest request = exchange.getRequest();
+        MessageVersion version = MessageVersion.of(request.getHeaders().getFirst(Header.MESSAGE_VERSION));
+        if (MessageVersion.V3_0_0 == version) {
+            context.setVersion(version);
+        }
+
+        if (signatureFailureGuard.isBlocked(exchange)) {
+            return signatureFailureGuard.reject(exchange);
+        }
 
         if (request.getMethod() == HttpMethod.GET) {
             return get(exchange, chain, context);
         }
 
+        if (properties.getStreaming().isRequest() && MessageVersion.V3_0_0 != version) {
+            return streaming(exchange, chain, context);
+        }
+
         ServerRequest serverRequest = ServerRequest.create(exchange, messageReaders);
         // TODO: flux or mono
-        Mono<byte[]> modifiedBody = serverRequest.bodyToMono(RequestMessage.class)
-                .flatMap(body -> {
-                    try {
-                        messageService.init(context, body);
-                        messageService.verify(exchange, context);
-                    } catch (Exception e) {
-                        LOGGER.error("签名验证失败: {}", e.getMessage());
-                        return Mono.error(e);
+        return serverRequest.bodyToMono(RequestMessage.class)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Required request body is missing")))
+                .flatMap(body -> messageService.init(context, body))
+                .flatMap(ctx -> signatureFailureGuard.isBlocked(exchange, ctx.getClient().getId())
+                        ? signatureFailureGuard.reject(exchange)
+                        : post(exchange, chain, ctx));
+    }
+
+    /**
+     * 流式解析请求报文, payload 分段验签、解密后直接作为后端服务的请求体
+     * 字符集或加密方式不支持分段处理时按普通方式处理
+     */
+    private Mono<Void> streaming(ServerWebExchange exchange, GatewayFilterChain chain, MessageContext context) {
+        long maxLength = properties.getAdmission().getMaxPayloadLength() + MAX_ENVELOPE_OVERHEAD;
+        return EnvelopeDecoder.decode(exchange.getRequest().getBody(), maxLength)
+                .flatMap(envelope -> {
+                    if (envelope.isStreamable()) {
+                        context.setPayloadText(envelope.getPayload());
+                        return messageService.init(context, envelope.getMessage());
+                    }
+                    return messageService.init(context, envelope.toRequestMessage());
+                })
+                .flatMap(ctx -> {
+                    if (signatureFailureGuard.isBlocked(exchange, ctx.getClient().getId())) {
+                        return signatureFailureGuard.reject(exchange);
+                    }
+                    return null == ctx.getPayloadText() ? post(exchange, chain, ctx) : postStreaming(exchange, chain, ctx);
+                });
+    }
+
+    private Mono<Void> postStreaming(ServerWebExchange exchange, GatewayFilterChain chain, MessageContext context) {
+        Mono<DecryptedBody> decrypted = cryptoScheduler.execute(() -> messageService.decryptToBuffers(exchange, context, exchange.getResponse().bufferFactory()));
+        return verifyAnd(exchange, context, decrypted, DecryptedBody::destroy)
+                .doOnDiscard(DecryptedBody.class, DecryptedBody::destroy)
+                .flatMap(body -> forwardStreaming(exchange, chain, context, body));
+    }
+
+    /**
+     * 明文 DataBuffer 由后端请求订阅后负责释放; 后端请求订阅前出错、取消, 或订阅后取消时, 未发送的 DataBuffer 在这里释放
+     */
+    private Mono<Void> forwardStreaming(ServerWebExchange exchange, GatewayFilterChain chain, MessageContext context, DecryptedBody body) {
+        AtomicBoolean subscribed = new AtomicBoolean();
+        context.setTrk(body.getTrk());
+        // 密文字符已不再需要
+        context.setPayloadText(null);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(exchange.getRequest().getHeaders());
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        headers.setContentLength(body.length());
+        headers.addAll(messageService.getRequestHeaders(context));
+
+        ServerHttpRequest decorator = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> subscribed.compareAndSet(false, true)
+                                ? Flux.fromIterable(body.getPayload())
+                                : Flux.error(new IllegalStateException("请求体只能读取一次")))
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+            }
+        };
+        return Mono.defer(() -> chain.filter(
+                        exchange.mutate()
+                                .request(decorator)
+                                .response(response(exchange))
+                                .build()
+                ))
+                .doFinally(signal -> {
+                    if (subscribed.compareAndSet(false, true)) {
+                        body.getPayload().forEach(DataBufferUtils::release);
                     }
-                    context.setRequestMessage(body);
-                    byte[] newBody = messageService.modifyRequestBody(exchange, context);
-                    return Mono.just(newBody);
-                }).switchIfEmpty(Mono.error(new IllegalArgumentException("Required request body is missing")));
+                });
+    }
 
+    private Mono<Void> post(ServerWebExchange exchange, GatewayFilterChain chain, MessageContext context) {
+        Mono<byte[]> modifiedBody = verifyAndDecrypt(exchange, context);
 
         BodyInserter<Mono<byte[]>, ReactiveHttpOutputMessage> bodyInserter = BodyInserters.fromPublisher(modifiedBody, byte[].class);
         HttpHeaders headers = new HttpHeaders();
@@ -105,18 +211,24 @@ public class MessageServiceGatewayFilter implements GatewayFilter, Ordered {
             return chain.filter(
                     exchange.mutate()
                             .request(decorator)
-                            .response(new MessageServiceServerHttpResponse(
-                                    messageService,
-                                    exchange,
-                                    messageReaders,
-                                    messageBodyDecoders,
-                                    messageBodyEncoders
-                            ))
+                            .response(response(exchange))
                             .build()
             );
         }));
     }
 
+    private MessageServiceServerHttpResponse response(ServerWebExchange exchange) {
+        return new MessageServiceServerHttpResponse(
+                messageService,
+                cryptoScheduler,
+                exchange,
+                properties.getStreaming(),
+                messageReaders,
+                messageBodyDecoders,
+                messageBodyEncoders
+        );
+    }
+
     @Override
     public int getOrder() {
         return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
@@ -126,19 +238,17 @@ public class MessageServiceGatewayFilter implements GatewayFilter, Ordered {
     private Mono<Void> get(ServerWebExchange exchange, GatewayFilterChain chain, MessageContext context) {
         ServerHttpRequest request = exchange.getRequest();
         RequestMessage body = new RequestMessage(request.getQueryParams());
-        messageService.init(context, body);
+        return messageService.init(context, body).flatMap(ctx -> signatureFailureGuard.isBlocked(exchange, ctx.getClient().getId())
+                ? signatureFailureGuard.reject(exchange)
+                : verifyAndDecrypt(exchange, ctx).flatMap(newBody -> forward(exchange, chain, ctx, newBody)));
+    }
 
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, MessageContext context, byte[] newBody) {
+        ServerHttpRequest request = exchange.getRequest();
         ServerHttpRequest.Builder requestBuilder = request.mutate();
         requestBuilder.headers(httpHeaders -> httpHeaders.putAll(messageService.getRequestHeaders(context)));
 
-        try {
-            messageService.verify(exchange, context);
-        } catch (Exception e) {
-            LOGGER.error("签名校验失败: {}", e.getMessage());
-            return Mono.error(e);
-        }
-        byte[] newBody = messageService.modifyRequestBody(exchange, context);
-        String newBodyStr = new String(newBody, body.charset());
+        String newBodyStr = new String(newBody, context.getCharset());
 
         if (StringUtils.isNotEmpty(newBodyStr)) {
             URI uri = exchange.getRequest().getURI();
@@ -154,32 +264,92 @@ public class MessageServiceGatewayFilter implements GatewayFilter, Ordered {
         return chain.filter(
                 exchange.mutate()
                         .request(requestBuilder.build())
-                        .response(new MessageServiceServerHttpResponse(
-                                messageService,
-                                exchange,
-                                messageReaders,
-                                messageBodyDecoders,
-                                messageBodyEncoders
-                        ))
+                        .response(response(exchange))
                         .build()
         );
     }
 
+    /**
+     * 签名验证与解密互不依赖, 分别在加解密线程池中并行执行
+     * 签名验证通过后才把解密结果写入context, 验证失败时丢弃并清除解密结果, 并记录签名验证失败次数
+     *
+     * @return 后端服务需要的请求数据
+     */
+    private Mono<byte[]> verifyAndDecrypt(ServerWebExchange exchange, MessageContext context) {
+        if (MessageVersion.V3_0_0 == context.getVersion()) {
+            // 3.0.0 版本解密时同时完成认证, 只需一次加解密任务
+            return cryptoScheduler.execute(() -> messageService.decrypt(exchange, context))
+                    .doOnError(SignatureException.class, e -> signatureFailureGuard.recordFailure(exchange, context.getClient().getId()))
+                    .map(message -> apply(context, message));
+        }
+        Mono<DecryptedMessage> decrypted = cryptoScheduler.execute(() -> messageService.decrypt(exchange, context));
+        return verifyAnd(exchange, context, decrypted, DecryptedMessage::destroy).map(message -> apply(context, message));
+    }
+
+    /**
+     * 签名验证与解密并行执行, 签名验证通过后才返回解密结果
+     *
+     * @param discard 签名验证失败时清除解密结果
+     */
+    private <T> Mono<T> verifyAnd(ServerWebExchange exchange, MessageContext context, Mono<T> decrypted, Consumer<T> discard) {
+        Mono<Boolean> verified = cryptoScheduler.execute(() -> {
+            messageService.verify(exchange, context);
+            return Boolean.TRUE;
+        });
+
+        return Mono.zip(verified.materialize(), decrypted.materialize()).flatMap(signals -> {
+            Signal<Boolean> verifySignal = signals.getT1();
+            Signal<T> decryptSignal = signals.getT2();
+            if (verifySignal.isOnError()) {
+                LOGGER.error("签名验证失败: {}", verifySignal.getThrowable().getMessage());
+                if (decryptSignal.hasValue()) {
+                    discard.accept(decryptSignal.get());
+                }
+                if (verifySignal.getThrowable() instanceof SignatureException) {
+                    signatureFailureGuard.recordFailure(exchange, context.getClient().getId());
+                }
+                return Mono.error(verifySignal.getThrowable());
+            }
+            if (decryptSignal.isOnError()) {
+                return Mono.error(decryptSignal.getThrowable());
+            }
+            return Mono.just(decryptSignal.get());
+        });
+    }
+
+    private byte[] apply(MessageContext context, DecryptedMessage message) {
+        context.setTrk(message.getTrk());
+        if (message.getPayload().length > 0) {
+            context.setPayload(message.getPayload());
+        }
+        return message.getPayload();
+    }
+
     private ServerHttpRequestDecorator decorate(ServerWebExchange exchange, HttpHeaders headers, CachedBodyOutputMessage outputMessage, MessageContext context) {
         return new ServerHttpRequestDecorator(exchange.getRequest()) {
+
+            /**
+             * 合并后的请求头, 请求体写入完成后才会创建装饰器, 只需计算一次
+             */
+            private HttpHeaders httpHeaders;
+
             @Override
             public HttpHeaders getHeaders() {
+                if (null != httpHeaders) {
+                    return httpHeaders;
+                }
                 long contentLength = headers.getContentLength();
-                HttpHeaders httpHeaders = new HttpHeaders();
-                httpHeaders.putAll(headers);
+                HttpHeaders merged = new HttpHeaders();
+                merged.putAll(headers);
                 if (contentLength > 0) {
-                    httpHeaders.setContentLength(contentLength);
+                    merged.setContentLength(contentLength);
                 } else {
                     // TODO: this causes a 'HTTP/1.1 411 Length Required' // on
                     // httpbin.org
-                    httpHeaders.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+                    merged.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
                 }
-                httpHeaders.addAll(messageService.getRequestHeaders(context));
+                merged.addAll(messageService.getRequestHeaders(context));
+                httpHeaders = merged;
                 return httpHeaders;
             }
 
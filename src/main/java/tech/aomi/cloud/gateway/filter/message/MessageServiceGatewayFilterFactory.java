@@ -10,7 +10,10 @@ import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyDecod
 import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyEncoder;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.stereotype.Component;
+import tech.aomi.cloud.gateway.GatewayProperties;
 import tech.aomi.cloud.gateway.api.MessageService;
+import tech.aomi.cloud.gateway.crypto.CryptoScheduler;
+import tech.aomi.cloud.gateway.guard.SignatureFailureGuard;
 
 import java.util.Set;
 
@@ -35,6 +38,15 @@ public class MessageServiceGatewayFilterFactory extends AbstractGatewayFilterFac
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private CryptoScheduler cryptoScheduler;
+
+    @Autowired
+    private SignatureFailureGuard signatureFailureGuard;
+
+    @Autowired
+    private GatewayProperties properties;
+
     public MessageServiceGatewayFilterFactory() {
         super(Config.class);
     }
@@ -48,6 +60,9 @@ public class MessageServiceGatewayFilterFactory extends AbstractGatewayFilterFac
     public GatewayFilter apply(MessageServiceGatewayFilterFactory.Config config) {
         return new MessageServiceGatewayFilter(
                 messageService,
+                cryptoScheduler,
+                signatureFailureGuard,
+                properties,
                 codecConfigurer.getReaders(),
                 bodyDecoders,
                 bodyEncoders
@@ -23,13 +23,20 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
+import tech.aomi.cloud.gateway.GatewayProperties;
 import tech.aomi.cloud.gateway.api.MessageService;
 import tech.aomi.cloud.gateway.controller.ResponseMessage;
+import tech.aomi.cloud.gateway.crypto.CryptoScheduler;
 import tech.aomi.common.web.controller.Result;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.util.function.Function.identity;
@@ -41,6 +48,11 @@ import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.O
 @Slf4j
 public class MessageServiceServerHttpResponse extends ServerHttpResponseDecorator {
 
+    /**
+     * 写入结果已交给下游或已释放
+     */
+    private static final Object DELIVERED = new Object();
+
     private final List<HttpMessageReader<?>> messageReaders;
 
     private final Map<String, MessageBodyDecoder> messageBodyDecoders;
@@ -51,16 +63,27 @@ public class MessageServiceServerHttpResponse extends ServerHttpResponseDecorato
 
     private final MessageService messageService;
 
+    private final CryptoScheduler cryptoScheduler;
+
+    /**
+     * 报文流式处理配置
+     */
+    private final GatewayProperties.Streaming streaming;
+
     public MessageServiceServerHttpResponse(
             MessageService messageService,
+            CryptoScheduler cryptoScheduler,
             ServerWebExchange exchange,
+            GatewayProperties.Streaming streaming,
             List<HttpMessageReader<?>> messageReaders,
             Set<MessageBodyDecoder> messageBodyDecoders,
             Set<MessageBodyEncoder> messageBodyEncoders
     ) {
         super(exchange.getResponse());
         this.messageService = messageService;
+        this.cryptoScheduler = cryptoScheduler;
         this.exchange = exchange;
+        this.streaming = streaming;
         this.messageReaders = messageReaders;
 
         this.messageBodyDecoders = messageBodyDecoders.stream().collect(Collectors.toMap(MessageBodyDecoder::encodingType, identity()));
@@ -93,20 +116,30 @@ public class MessageServiceServerHttpResponse extends ServerHttpResponseDecorato
         // types like "Content-Type: image"
         httpHeaders.add(HttpHeaders.CONTENT_TYPE, originalResponseContentType);
 
+        if (streaming.isResponse() && null != messageContext && messageContext.isStreamable() && !isEncoded()) {
+            if (streaming.isRawPayload() && StandardCharsets.UTF_8.equals(messageContext.getCharset())) {
+                Mono<RawResultDecoder.RawResult> original = RawResultDecoder.decode(Flux.from(body))
+                        .doOnDiscard(RawResultDecoder.RawResult.class, RawResultDecoder.RawResult::release);
+                return writeStreaming(original, messageContext, messageService::writeResponseBody, RawResultDecoder.RawResult::release);
+            }
+            return writeStreaming(extractBody(prepareClientResponse(body, httpHeaders), Result.Entity.class), messageContext, messageService::writeResponseBody, original -> {
+            });
+        }
+
         ClientResponse clientResponse = prepareClientResponse(body, httpHeaders);
 
         // TODO: flux or mono
         Mono<ResponseMessage> modifiedBody = extractBody(clientResponse, Result.Entity.class)
-                .flatMap(originalBody -> {
+                .flatMap(originalBody -> cryptoScheduler.execute(() -> {
                     try {
                         ResponseMessage message = messageService.modifyResponseBody(exchange, messageContext, originalBody);
                         messageService.sign(exchange, messageContext, message);
-                        return Mono.just(message);
+                        return message;
                     } catch (Exception e) {
                         LOGGER.error("响应结果处理失败: {}", e.getMessage(), e);
-                        return Mono.error(e);
+                        throw e;
                     }
-                });
+                }));
 
         BodyInserter<Mono<ResponseMessage>, ReactiveHttpOutputMessage> bodyInserter = BodyInserters.fromPublisher(modifiedBody, ResponseMessage.class);
 
@@ -125,6 +158,81 @@ public class MessageServiceServerHttpResponse extends ServerHttpResponseDecorato
         }));
     }
 
+    /**
+     * 响应报文直接写入 DataBuffer, 不经过 ResponseMessage 对象及再次序列化
+     *
+     * @param release 写入任务没有执行时释放原始响应, 任务开始执行后由 writer 释放
+     */
+    private <T> Mono<Void> writeStreaming(Mono<T> originalBody, MessageContext messageContext, Writer<T> writer, Consumer<T> release) {
+        Mono<List<DataBuffer>> modifiedBody = originalBody.flatMap(original -> write(messageContext, original, writer, release));
+
+        return modifiedBody.flatMap(buffers -> {
+            HttpHeaders headers = getHeaders();
+            headers.addAll(messageService.getResponseHeaders(messageContext));
+            long length = 0;
+            for (DataBuffer buffer : buffers) {
+                length += buffer.readableByteCount();
+            }
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentLength(length);
+            // 写出过程中取消时释放未写出的 DataBuffer
+            return getDelegate().writeWith(Flux.fromIterable(buffers).doOnDiscard(DataBuffer.class, DataBufferUtils::release));
+        });
+    }
+
+    /**
+     * 在加解密线程池中写入响应报文
+     * 任务被拒绝或开始执行前取消时释放原始响应; 写入结果没有交给下游时释放写入的 DataBuffer
+     */
+    private <T> Mono<List<DataBuffer>> write(MessageContext messageContext, T original, Writer<T> writer, Consumer<T> release) {
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicReference<Object> result = new AtomicReference<>();
+        return cryptoScheduler.execute(() -> {
+                    if (!started.compareAndSet(false, true)) {
+                        return Collections.<DataBuffer>emptyList();
+                    }
+                    List<DataBuffer> buffers;
+                    try {
+                        buffers = writer.write(exchange, messageContext, original, bufferFactory());
+                    } catch (Exception e) {
+                        LOGGER.error("响应结果处理失败: {}", e.getMessage(), e);
+                        throw e;
+                    }
+                    if (!result.compareAndSet(null, buffers)) {
+                        buffers.forEach(DataBufferUtils::release);
+                    }
+                    return buffers;
+                })
+                .doOnNext(buffers -> result.compareAndSet(buffers, DELIVERED))
+                .doFinally(signal -> {
+                    if (started.compareAndSet(false, true)) {
+                        release.accept(original);
+                    }
+                    Object dropped = result.getAndSet(DELIVERED);
+                    if (dropped instanceof List) {
+                        ((List<?>) dropped).forEach(buffer -> DataBufferUtils.release((DataBuffer) buffer));
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface Writer<T> {
+        List<DataBuffer> write(ServerWebExchange exchange, MessageContext context, T body, DataBufferFactory bufferFactory);
+    }
+
+    /**
+     * 后端响应是否经过压缩, 压缩的响应需要整体编码, 不使用流式写入
+     */
+    private boolean isEncoded() {
+        for (String encoding : getHeaders().getOrEmpty(HttpHeaders.CONTENT_ENCODING)) {
+            if (messageBodyEncoders.containsKey(encoding)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
         return writeWith(Flux.from(body).flatMapSequential(p -> p));
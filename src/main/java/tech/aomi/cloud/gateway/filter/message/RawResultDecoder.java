@@ -0,0 +1,222 @@
+package tech.aomi.cloud.gateway.filter.message;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.json.async.NonBlockingJsonParser;
+import lombok.Getter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 后端响应流式解析
+ * 只读取 success、status、describe 字段, payload 不绑定为对象, 记录其在响应体中的字节范围, 加密时直接使用原始字节
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public final class RawResultDecoder {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final NonBlockingJsonParser parser;
+
+    private final RawResult result = new RawResult();
+
+    private byte[] input = new byte[0];
+
+    private int depth;
+
+    private boolean finished;
+
+    private String field;
+
+    private RawResultDecoder() throws IOException {
+        this.parser = (NonBlockingJsonParser) FACTORY.createNonBlockingByteArrayParser();
+    }
+
+    /**
+     * 解析后端响应
+     *
+     * @param body 后端响应体, 解析完成前不释放
+     * @return 解析结果, 使用后需要调用 {@link RawResult#release()}
+     */
+    public static Mono<RawResult> decode(Flux<DataBuffer> body) {
+        return Mono.defer(() -> {
+            RawResultDecoder decoder;
+            try {
+                decoder = new RawResultDecoder();
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            return body.doOnNext(decoder::feed)
+                    .then(Mono.fromCallable(decoder::finish))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doOnError(e -> decoder.result.release())
+                    .doOnCancel(decoder.result::release);
+        });
+    }
+
+    private void feed(DataBuffer buffer) {
+        // 响应体在加密完成前一直保留, 只复制给解析器读取
+        result.buffers.add(buffer);
+        try {
+            int n = buffer.readableByteCount();
+            if (input.length < n) {
+                input = new byte[n];
+            }
+            buffer.asByteBuffer().get(input, 0, n);
+            parser.getNonBlockingInputFeeder().feedInput(input, 0, n);
+            drain();
+        } catch (IOException e) {
+            throw new IllegalStateException("后端响应格式不正确", e);
+        }
+    }
+
+    private RawResult finish() throws IOException {
+        parser.getNonBlockingInputFeeder().endOfInput();
+        try {
+            drain();
+        } finally {
+            parser.close();
+        }
+        if (!finished) {
+            throw new IllegalStateException("后端响应格式不正确");
+        }
+        if (result.payloadStart < 0) {
+            // 没有对象或数组类型的 payload, 不再需要原始响应体
+            result.release();
+        }
+        return result;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (null != (token = parser.nextToken()) && JsonToken.NOT_AVAILABLE != token) {
+            if (finished) {
+                throw new IllegalStateException("后端响应格式不正确");
+            }
+            switch (token) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    if (0 == depth && JsonToken.START_OBJECT != token) {
+                        throw new IllegalStateException("后端响应格式不正确");
+                    }
+                    if (1 == depth && "payload".equals(field)) {
+                        result.payloadStart = parser.getTokenLocation().getByteOffset();
+                    }
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    if (1 == depth && "payload".equals(field)) {
+                        result.payloadEnd = parser.getCurrentLocation().getByteOffset();
+                    }
+                    finished = 0 == depth;
+                    break;
+                case FIELD_NAME:
+                    if (1 == depth) {
+                        field = parser.getCurrentName();
+                    }
+                    break;
+                default:
+                    if (1 == depth) {
+                        value(token);
+                    }
+            }
+        }
+    }
+
+    private void value(JsonToken token) throws IOException {
+        switch (field) {
+            case "success":
+                result.success = JsonToken.VALUE_NULL == token ? null : parser.getValueAsBoolean();
+                break;
+            case "status":
+                result.status = JsonToken.VALUE_NULL == token ? null : parser.getText();
+                break;
+            case "describe":
+                result.describe = JsonToken.VALUE_NULL == token ? null : parser.getText();
+                break;
+            case "payload":
+                // 简单类型的 payload 直接保存序列化结果
+                if (JsonToken.VALUE_STRING == token) {
+                    result.scalar = ("\"" + new String(JsonStringEncoder.getInstance().quoteAsString(parser.getText())) + "\"")
+                            .getBytes(StandardCharsets.UTF_8);
+                } else if (JsonToken.VALUE_NULL != token) {
+                    result.scalar = parser.getText().getBytes(StandardCharsets.UTF_8);
+                }
+                break;
+            default:
+        }
+    }
+
+    /**
+     * 解析结果
+     */
+    @Getter
+    public static class RawResult {
+
+        private Boolean success;
+
+        private String status;
+
+        private String describe;
+
+        /**
+         * 简单类型的 payload
+         */
+        private byte[] scalar;
+
+        private final List<DataBuffer> buffers = new ArrayList<>();
+
+        private long payloadStart = -1;
+
+        private long payloadEnd = -1;
+
+        /**
+         * @return 是否存在 payload
+         */
+        public boolean hasPayload() {
+            return null != scalar || payloadStart >= 0;
+        }
+
+        /**
+         * payload 原始字节, 对象或数组类型时为响应体的分片, 不复制数据
+         */
+        public List<ByteBuffer> payload() {
+            if (null != scalar) {
+                return Collections.singletonList(ByteBuffer.wrap(scalar));
+            }
+            List<ByteBuffer> payload = new ArrayList<>();
+            long offset = 0;
+            for (DataBuffer buffer : buffers) {
+                int n = buffer.readableByteCount();
+                long start = Math.max(payloadStart, offset);
+                long end = Math.min(payloadEnd, offset + n);
+                if (start < end) {
+                    payload.add(buffer.asByteBuffer((int) (buffer.readPosition() + start - offset), (int) (end - start)));
+                }
+                offset += n;
+            }
+            return payload;
+        }
+
+        /**
+         * 释放后端响应体
+         */
+        public void release() {
+            buffers.forEach(DataBufferUtils::release);
+            buffers.clear();
+        }
+    }
+}
@@ -27,11 +27,12 @@ import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import tech.aomi.cloud.gateway.api.ClientService;
 import tech.aomi.cloud.gateway.api.MessageService;
+import tech.aomi.cloud.gateway.api.ReactiveClientService;
 import tech.aomi.cloud.gateway.constant.Header;
 import tech.aomi.cloud.gateway.constant.MessageVersion;
 import tech.aomi.cloud.gateway.controller.RequestMessage;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
 import tech.aomi.cloud.gateway.entity.Client;
 import tech.aomi.cloud.gateway.filter.v1.SignDataUtils;
 import tech.aomi.common.constant.HttpHeader;
@@ -53,7 +54,7 @@ import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.G
 public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<TransformGatewayFilterFactory.Config> {
 
     @Autowired
-    private ClientService clientService;
+    private ReactiveClientService reactiveClientService;
 
     @Autowired
     private MessageService messageService;
@@ -61,6 +62,9 @@ public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<
     @Autowired
     private ServerCodecConfigurer codecConfigurer;
 
+    @Autowired
+    private KeyCache keyCache;
+
     public TransformGatewayFilterFactory() {
         super(Config.class);
     }
@@ -75,17 +79,26 @@ public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<
             String messageVersion = Optional.ofNullable(headers.getFirst(Header.MESSAGE_VERSION)).orElse(MessageVersion.LATEST.getVersion());
             MessageVersion version = Optional.ofNullable(MessageVersion.of(messageVersion)).orElse(MessageVersion.LATEST);
 
-            switch (version) {
-                case V1_0_0:
-                    return version100(exchange, chain);
-                default:
-                    return versionLatest(exchange, chain);
-            }
-
+            // 目标客户端ID
+            String clientId = Optional.ofNullable(headers.getFirst(Header.CLIENT_ID)).orElseThrow(() -> new IllegalArgumentException("目标客户端ID不能为空"));
+
+            // 目标客户端
+            return reactiveClientService.getClient(clientId)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNonExistException("目标客户端不存在")))
+                    .flatMap(client -> {
+                        switch (version) {
+                            case V1_0_0:
+                                return version100(exchange, chain, client);
+                            case V3_0_0:
+                                return versionLatest(exchange, chain, client, version);
+                            default:
+                                return versionLatest(exchange, chain, client, MessageVersion.LATEST);
+                        }
+                    });
         };
     }
 
-    private Mono<Void> versionLatest(ServerWebExchange exchange, GatewayFilterChain chain) {
+    private Mono<Void> versionLatest(ServerWebExchange exchange, GatewayFilterChain chain, Client client, MessageVersion version) {
         ServerHttpRequest request = exchange.getRequest();
         //请求头
         HttpHeaders headers = request.getHeaders();
@@ -97,12 +110,6 @@ public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<
         // 目标地址
         String uriStr = Optional.ofNullable(headers.getFirst(Header.TARGET_HEADER_KEY)).orElseThrow(() -> new IllegalArgumentException("目标地址不能为空"));
 
-        // 目标客户端ID
-        String clientId = Optional.ofNullable(headers.getFirst(Header.CLIENT_ID)).orElseThrow(() -> new IllegalArgumentException("目标客户端ID不能为空"));
-
-        // 目标客户端
-        Client client = Optional.ofNullable(clientService.getClient(clientId)).orElseThrow(() -> new ResourceNonExistException("目标客户端不存在"));
-
         // 当route
         Route route = (Route) Optional.ofNullable(exchange.getAttribute(GATEWAY_ROUTE_ATTR)).orElseThrow(() -> new RuntimeException("无法获取路由信息"));
 
@@ -119,15 +126,21 @@ public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<
         URI uri;
         if (method == HttpMethod.GET) {
             String payload = Json.toJson(queryParams).toString();
-            RequestMessage body = messageService.createRequestMessage(client, payload);
+            RequestMessage body = messageService.createRequestMessage(client, payload, version);
             uriBuilder.queryParam("clientId", body.getClientId());
-            uriBuilder.queryParam("trk", body.getTrk());
+            if (MessageVersion.V3_0_0 == version) {
+                uriBuilder.queryParam("epk", body.getEpk());
+            } else {
+                uriBuilder.queryParam("trk", body.getTrk());
+            }
             uriBuilder.queryParam("timestamp", body.getTimestamp());
             uriBuilder.queryParam("randomString", body.getRandomString());
             uriBuilder.queryParam("payload", body.getPayload());
             uriBuilder.queryParam("charset", body.getCharset());
-            uriBuilder.queryParam("signType", body.getSignType());
-            uriBuilder.queryParam("sign", body.getSign());
+            if (MessageVersion.V3_0_0 != version) {
+                uriBuilder.queryParam("signType", body.getSignType());
+                uriBuilder.queryParam("sign", body.getSign());
+            }
             uri = uriBuilder.build().toUri();
 
             //替换新的url地址
@@ -153,7 +166,7 @@ public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<
             Mono<String> modifiedBody = serverRequest.bodyToMono(String.class)
                     .flatMap(body -> {
                         try {
-                            RequestMessage requestMessage = messageService.createRequestMessage(client, body);
+                            RequestMessage requestMessage = messageService.createRequestMessage(client, body, version);
                             return Mono.just(Json.toJson(requestMessage).toString());
                         } catch (Exception e) {
                             LOGGER.error("请求参数处理失败: {}", e.getMessage());
@@ -189,7 +202,7 @@ public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<
         }
     }
 
-    private Mono<Void> version100(ServerWebExchange exchange, GatewayFilterChain chain) {
+    private Mono<Void> version100(ServerWebExchange exchange, GatewayFilterChain chain, Client client) {
         ServerHttpRequest request = exchange.getRequest();
         //请求头
         HttpHeaders headers = request.getHeaders();
@@ -201,12 +214,6 @@ public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<
         // 目标地址
         String uriStr = Optional.ofNullable(headers.getFirst(Header.TARGET_HEADER_KEY)).orElseThrow(() -> new IllegalArgumentException("目标地址不能为空"));
 
-        // 目标客户端ID
-        String clientId = Optional.ofNullable(headers.getFirst(Header.CLIENT_ID)).orElseThrow(() -> new IllegalArgumentException("目标客户端ID不能为空"));
-
-        // 目标客户端
-        Client client = Optional.ofNullable(clientService.getClient(clientId)).orElseThrow(() -> new ResourceNonExistException("目标客户端不存在"));
-
         // 当route
         Route route = (Route) Optional.ofNullable(exchange.getAttribute(GATEWAY_ROUTE_ATTR)).orElseThrow(() -> new RuntimeException("无法获取路由信息"));
 
@@ -226,7 +233,7 @@ public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<
                 .flatMap(body -> {
                     try {
                         JsonNode data = Json.parse(body);
-                        String sign = SignDataUtils.getSign(data, client.getPrivateKey());
+                        String sign = SignDataUtils.getSign(data, keyCache.privateKey(client.getId(), client.getPrivateKey()));
                         newHeaders.add(HttpHeader.SIGNATURE, sign);
                         return Mono.just(SignDataUtils.getSignText(data));
                     } catch (Exception e) {
@@ -264,18 +271,28 @@ public class TransformGatewayFilterFactory extends AbstractGatewayFilterFactory<
 
     private ServerHttpRequestDecorator decorate(ServerWebExchange exchange, HttpHeaders headers, CachedBodyOutputMessage outputMessage) {
         return new ServerHttpRequestDecorator(exchange.getRequest()) {
+
+            /**
+             * 合并后的请求头, 请求体写入完成后才会创建装饰器, 只需计算一次
+             */
+            private HttpHeaders httpHeaders;
+
             @Override
             public HttpHeaders getHeaders() {
+                if (null != httpHeaders) {
+                    return httpHeaders;
+                }
                 long contentLength = headers.getContentLength();
-                HttpHeaders httpHeaders = new HttpHeaders();
-                httpHeaders.putAll(headers);
+                HttpHeaders merged = new HttpHeaders();
+                merged.putAll(headers);
                 if (contentLength > 0) {
-                    httpHeaders.setContentLength(contentLength);
+                    merged.setContentLength(contentLength);
                 } else {
                     // TODO: this causes a 'HTTP/1.1 411 Length Required' // on
                     // httpbin.org
-                    httpHeaders.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+                    merged.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
                 }
+                httpHeaders = merged;
                 return httpHeaders;
             }
 
@@ -0,0 +1,177 @@
+package tech.aomi.cloud.gateway.filter.v1;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import tech.aomi.cloud.gateway.crypto.SignData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * v1 签名数据规范化
+ * 直接读取 JSON token 流, 每层对象按 key 排序后输出, 不绑定为 Map 再序列化
+ * 输出与 {@link SignDataUtils} 旧的处理方式一致:
+ * <ul>
+ *     <li>对象 key 按自然顺序排序, 重复的 key 以最后一个为准</li>
+ *     <li>小数按 BigDecimal 读取, 以不带指数的形式输出</li>
+ *     <li>去掉空白字符, 数组元素保持原顺序</li>
+ * </ul>
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public final class JsonCanonicalizer {
+
+    private final JsonFactory factory;
+
+    /**
+     * 对象中值为 null 的字段是否不输出
+     */
+    private final boolean suppressNulls;
+
+    public JsonCanonicalizer(JsonFactory factory, boolean suppressNulls) {
+        this.factory = factory;
+        this.suppressNulls = suppressNulls;
+    }
+
+    /**
+     * 规范化后直接更新到签名计算中
+     *
+     * @param json    JSON 对象
+     * @param updater 签名计算
+     */
+    public void update(byte[] json, SignData.Updater updater) throws IOException, GeneralSecurityException {
+        UpdaterOutputStream out = new UpdaterOutputStream(updater);
+        try {
+            write(json, out);
+        } catch (UpdaterException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * @param json JSON 对象
+     * @return 规范化的 JSON
+     */
+    public byte[] canonicalize(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        write(json, out);
+        return out.toByteArray();
+    }
+
+    private void write(byte[] json, OutputStream out) throws IOException {
+        try (JsonParser parser = factory.createParser(json);
+             JsonGenerator generator = factory.createGenerator(out)) {
+            if (JsonToken.START_OBJECT != parser.nextToken()) {
+                throw new IOException("签名数据不是 JSON 对象");
+            }
+            writeObject(parser, generator);
+        }
+    }
+
+    /**
+     * 当前 token 为 START_OBJECT, 读取到对应的 END_OBJECT
+     * 子节点先规范化到 TokenBuffer, 全部读取后按 key 顺序输出
+     */
+    private void writeObject(JsonParser parser, JsonGenerator generator) throws IOException {
+        Map<String, TokenBuffer> fields = new TreeMap<>();
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (JsonToken.VALUE_NULL == token && suppressNulls) {
+                fields.put(name, null);
+                continue;
+            }
+            TokenBuffer value = new TokenBuffer(parser);
+            writeValue(parser, value);
+            fields.put(name, value);
+        }
+
+        generator.writeStartObject();
+        for (Map.Entry<String, TokenBuffer> field : fields.entrySet()) {
+            if (null == field.getValue()) {
+                continue;
+            }
+            generator.writeFieldName(field.getKey());
+            try (JsonParser value = field.getValue().asParser()) {
+                value.nextToken();
+                generator.copyCurrentStructure(value);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeArray(JsonParser parser, JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        while (JsonToken.END_ARRAY != parser.nextToken()) {
+            writeValue(parser, generator);
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeValue(JsonParser parser, JsonGenerator generator) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (null == token) {
+            throw new IOException("签名数据不完整");
+        }
+        switch (token) {
+            case START_OBJECT:
+                writeObject(parser, generator);
+                break;
+            case START_ARRAY:
+                writeArray(parser, generator);
+                break;
+            case VALUE_NUMBER_FLOAT:
+                generator.writeNumber(parser.getDecimalValue());
+                break;
+            default:
+                generator.copyCurrentEvent(parser);
+        }
+    }
+
+    private static final class UpdaterOutputStream extends OutputStream {
+
+        private final SignData.Updater updater;
+
+        private final byte[] single = new byte[1];
+
+        UpdaterOutputStream(SignData.Updater updater) {
+            this.updater = updater;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            single[0] = (byte) b;
+            write(single, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                updater.update(b, off, len);
+            } catch (GeneralSecurityException e) {
+                throw new UpdaterException(e);
+            }
+        }
+    }
+
+    private static final class UpdaterException extends IOException {
+
+        private static final long serialVersionUID = -2617245468356374917L;
+
+        UpdaterException(GeneralSecurityException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized GeneralSecurityException getCause() {
+            return (GeneralSecurityException) super.getCause();
+        }
+    }
+}
@@ -2,21 +2,27 @@ package tech.aomi.cloud.gateway.filter.v1;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.*;
 import lombok.extern.slf4j.Slf4j;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+import tech.aomi.cloud.gateway.crypto.SignData;
 import tech.aomi.common.constant.Common;
 import tech.aomi.common.utils.crypto.RSA;
-import tech.aomi.common.utils.crypto.RSAUtil;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.security.InvalidKeyException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
-import java.security.SignatureException;
+import java.security.Signature;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author 田尘殇Sean(sean.snow @ live.com) createAt 2018/9/4
@@ -26,6 +32,17 @@ public class SignDataUtils {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * 按类型缓存的 ObjectWriter
+     */
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private static final JsonCanonicalizer CANONICALIZER;
+
+    private static final byte[] PAYLOAD_FIELD = "\"payload\":".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] STATUS_FIELD = "\"status\":\"".getBytes(StandardCharsets.UTF_8);
+
     static {
         objectMapper
                 .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
@@ -34,6 +51,22 @@ public class SignDataUtils {
                 .configure(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS, true)
                 .setSerializationInclusion(JsonInclude.Include.NON_NULL)
         ;
+        CANONICALIZER = new JsonCanonicalizer(objectMapper.getFactory(), suppressNullMapValues());
+    }
+
+    /**
+     * Map 中值为 null 的字段是否输出由 NON_NULL 在当前 Jackson 版本中的处理方式决定, 与旧的处理方式保持一致
+     */
+    private static boolean suppressNullMapValues() {
+        try {
+            return "{}".equals(objectMapper.writeValueAsString(Collections.singletonMap("k", null)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ObjectWriter writer(Class<?> type) {
+        return WRITERS.computeIfAbsent(type, objectMapper::writerFor);
     }
 
     /**
@@ -43,7 +76,7 @@ public class SignDataUtils {
      * @return 数据转换的字符串
      */
     public static String getSignStr(Object data) {
-        ObjectWriter writer = objectMapper.writerFor(data.getClass());
+        ObjectWriter writer = writer(data.getClass());
         try {
             return writer.writeValueAsString(data);
         } catch (IOException ignored) {
@@ -59,7 +92,7 @@ public class SignDataUtils {
      * @return 数据转换的字符串
      */
     public static byte[] getSignText(Object data) {
-        ObjectWriter writer = objectMapper.writerFor(data.getClass());
+        ObjectWriter writer = writer(data.getClass());
         try {
             return writer.writeValueAsBytes(data);
         } catch (IOException ignored) {
@@ -67,8 +100,76 @@ public class SignDataUtils {
         return new byte[0];
     }
 
+    /**
+     * 响应签名数据, 与序列化只包含 status、payload 两个字段的对象结果一致
+     * 字段按名称排序, 为空的字段不输出
+     *
+     * @param payload 已序列化的 payload, 为空时不输出
+     * @param status  响应状态码
+     * @return 签名数据
+     */
+    public static byte[] entitySignText(byte[] payload, String status) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(null == payload ? 64 : payload.length + 64);
+        try {
+            updateEntitySignText(payload, status, out::write);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 响应签名数据分段更新到签名计算中, 不拼接完整的签名数据
+     *
+     * @param payload 已序列化的 payload, 为空时不输出
+     * @param status  响应状态码
+     * @param updater 签名计算
+     * @see #entitySignText(byte[], String)
+     */
+    public static void updateEntitySignText(byte[] payload, String status, SignData.Updater updater) throws GeneralSecurityException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(null == status ? 12 : status.length() + 14);
+        out.write('{');
+        if (null != payload) {
+            out.writeBytes(PAYLOAD_FIELD);
+            updater.update(out.toByteArray(), 0, out.size());
+            updater.update(payload, 0, payload.length);
+            out.reset();
+        }
+        if (null != status) {
+            if (null != payload) {
+                out.write(',');
+            }
+            out.writeBytes(STATUS_FIELD);
+            out.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(status));
+            out.write('"');
+        }
+        out.write('}');
+        updater.update(out.toByteArray(), 0, out.size());
+    }
+
+    /**
+     * 规范化 JSON 对象后直接更新到签名计算中
+     *
+     * @param strData JSON 对象
+     * @param updater 签名计算
+     */
+    public static void updateSignText(byte[] strData, SignData.Updater updater) throws IOException, GeneralSecurityException {
+        CANONICALIZER.update(strData, updater);
+    }
+
+    /**
+     * 规范化 JSON 对象
+     *
+     * @param strData JSON 对象
+     * @return 签名数据
+     */
+    public static byte[] canonicalize(byte[] strData) throws IOException {
+        return CANONICALIZER.canonicalize(strData);
+    }
+
     /**
      * 字符串转换为签名数据
+     * 先绑定为 Map 再序列化, 结果与 {@link #canonicalize(byte[])} 一致
      *
      * @param strData 签名数据
      * @return 签名信息
@@ -84,6 +185,52 @@ public class SignDataUtils {
         return new byte[0];
     }
 
+    /**
+     * 签名计算
+     *
+     * @param signText   已序列化的签名数据
+     * @param privateKey 私钥
+     * @return 签名信息
+     */
+    public static String signText(byte[] signText, PrivateKey privateKey) {
+        try {
+            byte[] signArr = CryptoEngine.sign(Common.SIGN_ALGORITHMS, privateKey, signText);
+            String sign = Base64.getEncoder().encodeToString(signArr);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("签名数据: [{}]", new String(signText, StandardCharsets.UTF_8));
+                LOGGER.debug("签名: [{}]", sign);
+            }
+            return sign;
+        } catch (GeneralSecurityException e) {
+            LOGGER.error("签名失败", e);
+            return "";
+        }
+    }
+
+    /**
+     * 响应签名计算, 签名数据见 {@link #entitySignText(byte[], String)}
+     *
+     * @param payload    已序列化的 payload
+     * @param status     响应状态码
+     * @param privateKey 私钥
+     * @return 签名信息
+     */
+    public static String signEntity(byte[] payload, String status, PrivateKey privateKey) {
+        try {
+            Signature signature = CryptoEngine.signer(Common.SIGN_ALGORITHMS, privateKey);
+            updateEntitySignText(payload, status, signature::update);
+            String sign = Base64.getEncoder().encodeToString(signature.sign());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("签名数据: [{}]", new String(entitySignText(payload, status), StandardCharsets.UTF_8));
+                LOGGER.debug("签名: [{}]", sign);
+            }
+            return sign;
+        } catch (GeneralSecurityException e) {
+            LOGGER.error("签名失败", e);
+            return "";
+        }
+    }
+
     /**
      * 签名计算
      *
@@ -92,17 +239,22 @@ public class SignDataUtils {
      * @return 签名信息
      */
     public static String getSign(Object data, String base64PrivateKey) {
-        byte[] signData = getSignText(data);
         try {
-            PrivateKey privateKey = RSA.parsePrivateKeyWithBase64(base64PrivateKey);
-            byte[] signArr = RSAUtil.sign(privateKey, Common.SIGN_ALGORITHMS, signData);
-            String sign = Base64.getEncoder().encodeToString(signArr);
-            LOGGER.debug("签名数据: [{}]", new String(signData));
-            LOGGER.debug("签名: [{}]", sign);
-            return sign;
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException | InvalidKeyException | SignatureException e) {
+            return getSign(data, RSA.parsePrivateKeyWithBase64(base64PrivateKey));
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             LOGGER.error("签名失败", e);
             return "";
         }
     }
+
+    /**
+     * 签名计算
+     *
+     * @param data       签名数据
+     * @param privateKey 私钥
+     * @return 签名信息
+     */
+    public static String getSign(Object data, PrivateKey privateKey) {
+        return signText(getSignText(data), privateKey);
+    }
 }
@@ -23,23 +23,26 @@ import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import tech.aomi.cloud.gateway.api.ClientService;
+import tech.aomi.cloud.gateway.api.ReactiveClientService;
 import tech.aomi.cloud.gateway.constant.Header;
 import tech.aomi.cloud.gateway.constant.MessageVersion;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+import tech.aomi.cloud.gateway.crypto.CryptoScheduler;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
 import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.guard.SignatureFailureGuard;
 import tech.aomi.common.constant.Common;
 import tech.aomi.common.constant.HttpHeader;
 import tech.aomi.common.exception.ResourceNonExistException;
 import tech.aomi.common.exception.ServiceException;
 import tech.aomi.common.exception.SignatureException;
-import tech.aomi.common.utils.crypto.RSA;
-import tech.aomi.common.utils.crypto.RSAUtil;
 import tech.aomi.common.utils.json.Json;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.security.PublicKey;
+import java.security.Signature;
 import java.util.*;
 
 /**
@@ -54,18 +57,30 @@ public class SignGatewayFilter implements GatewayFilter, Ordered {
 
     private final Set<MessageBodyEncoder> messageBodyEncoders;
 
-    private final ClientService clientService;
+    private final ReactiveClientService reactiveClientService;
+
+    private final KeyCache keyCache;
+
+    private final CryptoScheduler cryptoScheduler;
+
+    private final SignatureFailureGuard signatureFailureGuard;
 
     public SignGatewayFilter(
             List<HttpMessageReader<?>> messageReaders,
             Set<MessageBodyDecoder> messageBodyDecoders,
             Set<MessageBodyEncoder> messageBodyEncoders,
-            ClientService clientService
+            ReactiveClientService reactiveClientService,
+            KeyCache keyCache,
+            CryptoScheduler cryptoScheduler,
+            SignatureFailureGuard signatureFailureGuard
     ) {
         this.messageReaders = messageReaders;
         this.messageBodyDecoders = messageBodyDecoders;
         this.messageBodyEncoders = messageBodyEncoders;
-        this.clientService = clientService;
+        this.reactiveClientService = reactiveClientService;
+        this.keyCache = keyCache;
+        this.cryptoScheduler = cryptoScheduler;
+        this.signatureFailureGuard = signatureFailureGuard;
     }
 
 
@@ -86,19 +101,28 @@ public class SignGatewayFilter implements GatewayFilter, Ordered {
         if (StringUtils.isEmpty(code)) {
             return Mono.error(new ResourceNonExistException("客户端不存在: " + code));
         }
-
-        Client client = clientService.getClientByCode(code);
-        if (null == client || StringUtils.isEmpty(client.getClientPublicKey())) {
-            LOGGER.error("请求方没有配置密钥信息");
-            return Mono.error(new ServiceException("请求方没有配置密钥信息"));
+        if (signatureFailureGuard.isBlocked(exchange)) {
+            return signatureFailureGuard.reject(exchange);
         }
-        exchange.getAttributes().put("client", client);
 
-        if (exchange.getRequest().getMethod() == HttpMethod.GET) {
-            return handleGet(exchange, chain, client, sign);
-        }
+        return reactiveClientService.getClientByCode(code)
+                .filter(client -> StringUtils.isNotEmpty(client.getClientPublicKey()))
+                .switchIfEmpty(Mono.error(() -> {
+                    LOGGER.error("请求方没有配置密钥信息");
+                    return new ServiceException("请求方没有配置密钥信息");
+                }))
+                .flatMap(client -> {
+                    if (signatureFailureGuard.isBlocked(exchange, client.getId())) {
+                        return signatureFailureGuard.reject(exchange);
+                    }
+                    exchange.getAttributes().put("client", client);
 
-        return handleOther(exchange, chain, client, sign);
+                    if (exchange.getRequest().getMethod() == HttpMethod.GET) {
+                        return handleGet(exchange, chain, client, sign);
+                    }
+
+                    return handleOther(exchange, chain, client, sign);
+                });
     }
 
 
@@ -111,15 +135,16 @@ public class SignGatewayFilter implements GatewayFilter, Ordered {
         ServerRequest serverRequest = ServerRequest.create(exchange, messageReaders);
         // TODO: flux or mono
         Mono<byte[]> modifiedBody = serverRequest.bodyToMono(byte[].class)
-                .flatMap(body -> {
+                .flatMap(body -> cryptoScheduler.execute(() -> {
                     try {
                         verify(client, body, sign);
                     } catch (Exception e) {
                         LOGGER.error("签名验证失败: {}", e.getMessage());
-                        return Mono.error(e);
+                        recordFailure(exchange, client, e);
+                        throw e;
                     }
-                    return Mono.just(body);
-                });
+                    return body;
+                }));
 
 
         BodyInserter<Mono<byte[]>, ReactiveHttpOutputMessage> bodyInserter = BodyInserters.fromPublisher(modifiedBody, byte[].class);
@@ -143,7 +168,9 @@ public class SignGatewayFilter implements GatewayFilter, Ordered {
                                     exchange,
                                     messageReaders,
                                     messageBodyDecoders,
-                                    messageBodyEncoders
+                                    messageBodyEncoders,
+                                    keyCache,
+                                    cryptoScheduler
                             ))
                             .build()
             );
@@ -162,13 +189,16 @@ public class SignGatewayFilter implements GatewayFilter, Ordered {
                 }
             }
         });
-        try {
-            verify(client, Json.toJson(args).toString().getBytes(StandardCharsets.UTF_8), sign);
-        } catch (Exception e) {
-            LOGGER.error("签名校验失败: {}", e.getMessage());
-            return Mono.error(e);
-        }
-        return chain.filter(
+        return cryptoScheduler.execute(() -> {
+            try {
+                verify(client, Json.toJson(args).toString().getBytes(StandardCharsets.UTF_8), sign);
+            } catch (Exception e) {
+                LOGGER.error("签名校验失败: {}", e.getMessage());
+                recordFailure(exchange, client, e);
+                throw e;
+            }
+            return client;
+        }).then(Mono.defer(() -> chain.filter(
                 exchange.mutate()
                         .request(request.mutate()
                                 .header(Header.MESSAGE_VERSION, MessageVersion.V1_0_0.getVersion())
@@ -178,10 +208,12 @@ public class SignGatewayFilter implements GatewayFilter, Ordered {
                                 exchange,
                                 messageReaders,
                                 messageBodyDecoders,
-                                messageBodyEncoders
+                                messageBodyEncoders,
+                                keyCache,
+                                cryptoScheduler
                         ))
                         .build()
-        );
+        )));
     }
 
     public void verify(Client client, byte[] body, String sign) {
@@ -191,17 +223,18 @@ public class SignGatewayFilter implements GatewayFilter, Ordered {
         }
 
 
-        String bodyStr = new String(body, StandardCharsets.UTF_8);
-        LOGGER.debug("请求原始数据: [{}]", bodyStr);
-
-        byte[] signData = SignDataUtils.strToSignText(body);
-        LOGGER.debug("请求验签数据: [{}]", new String(signData));
-
         byte[] signBytes = Base64.getDecoder().decode(sign);
 
         try {
-            PublicKey publicKey = RSA.parsePublicKeyWithBase64(client.getClientPublicKey());
-            boolean isOk = RSAUtil.signVerify(publicKey, Common.SIGN_ALGORITHMS, signData, signBytes);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("请求原始数据: [{}]", new String(body, StandardCharsets.UTF_8));
+                LOGGER.debug("请求验签数据: [{}]", new String(SignDataUtils.canonicalize(body), StandardCharsets.UTF_8));
+            }
+            PublicKey publicKey = keyCache.publicKey(client.getId(), client.getClientPublicKey());
+            // 规范化结果直接更新到签名验证中, 不生成中间 Map 及签名数据
+            Signature signature = CryptoEngine.verifier(Common.SIGN_ALGORITHMS, publicKey);
+            SignDataUtils.updateSignText(body, signature::update);
+            boolean isOk = signature.verify(signBytes);
             if (isOk) {
                 return;
             }
@@ -214,20 +247,36 @@ public class SignGatewayFilter implements GatewayFilter, Ordered {
 
     }
 
+    private void recordFailure(ServerWebExchange exchange, Client client, Exception e) {
+        if (e instanceof SignatureException) {
+            signatureFailureGuard.recordFailure(exchange, client.getId());
+        }
+    }
+
     private ServerHttpRequestDecorator decorate(ServerWebExchange exchange, HttpHeaders headers, CachedBodyOutputMessage outputMessage) {
         return new ServerHttpRequestDecorator(exchange.getRequest()) {
+
+            /**
+             * 合并后的请求头, 请求体写入完成后才会创建装饰器, 只需计算一次
+             */
+            private HttpHeaders httpHeaders;
+
             @Override
             public HttpHeaders getHeaders() {
+                if (null != httpHeaders) {
+                    return httpHeaders;
+                }
                 long contentLength = headers.getContentLength();
-                HttpHeaders httpHeaders = new HttpHeaders();
-                httpHeaders.putAll(headers);
+                HttpHeaders merged = new HttpHeaders();
+                merged.putAll(headers);
                 if (contentLength > 0) {
-                    httpHeaders.setContentLength(contentLength);
+                    merged.setContentLength(contentLength);
                 } else {
                     // TODO: this causes a 'HTTP/1.1 411 Length Required' // on
                     // httpbin.org
-                    httpHeaders.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+                    merged.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
                 }
+                httpHeaders = merged;
                 return httpHeaders;
             }
 
@@ -10,7 +10,10 @@ import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyDecod
 import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyEncoder;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.stereotype.Component;
-import tech.aomi.cloud.gateway.api.ClientService;
+import tech.aomi.cloud.gateway.api.ReactiveClientService;
+import tech.aomi.cloud.gateway.crypto.CryptoScheduler;
+import tech.aomi.cloud.gateway.guard.SignatureFailureGuard;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
 
 import java.util.Set;
 
@@ -31,7 +34,16 @@ public class SignGatewayFilterFactory extends AbstractGatewayFilterFactory<SignG
     private Set<MessageBodyEncoder> bodyEncoders;
 
     @Autowired
-    private ClientService clientService;
+    private ReactiveClientService reactiveClientService;
+
+    @Autowired
+    private KeyCache keyCache;
+
+    @Autowired
+    private CryptoScheduler cryptoScheduler;
+
+    @Autowired
+    private SignatureFailureGuard signatureFailureGuard;
 
     public SignGatewayFilterFactory() {
         super(SignGatewayFilterFactory.Config.class);
@@ -43,7 +55,10 @@ public class SignGatewayFilterFactory extends AbstractGatewayFilterFactory<SignG
                 codecConfigurer.getReaders(),
                 bodyDecoders,
                 bodyEncoders,
-                clientService
+                reactiveClientService,
+                keyCache,
+                cryptoScheduler,
+                signatureFailureGuard
         );
     }
 
@@ -1,32 +1,44 @@
 package tech.aomi.cloud.gateway.filter.v1;
 
-import lombok.Data;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.extern.slf4j.Slf4j;
 import org.reactivestreams.Publisher;
-import org.springframework.cloud.gateway.filter.factory.rewrite.CachedBodyOutputMessage;
 import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyDecoder;
 import org.springframework.cloud.gateway.filter.factory.rewrite.MessageBodyEncoder;
-import org.springframework.cloud.gateway.support.BodyInserterContext;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.MediaType;
 import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
-import org.springframework.web.reactive.function.BodyInserter;
-import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
+import tech.aomi.cloud.gateway.crypto.CryptoScheduler;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
 import tech.aomi.cloud.gateway.entity.Client;
 import tech.aomi.common.constant.HttpHeader;
+import tech.aomi.common.exception.ServiceException;
 import tech.aomi.common.web.controller.Result;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,6 +53,17 @@ import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.O
 @Slf4j
 public class SignServerHttpResponse extends ServerHttpResponseDecorator {
 
+    private static final String SIGNED_PAYLOAD = SignServerHttpResponse.class.getName() + ".SIGNED_PAYLOAD";
+
+    /**
+     * 响应体序列化, payload 直接使用签名时已序列化的结果
+     * 签名数据不输出值为 null 的字段, payload 中有这样的字段时重新序列化, 响应体保留 null 字段
+     */
+    private static final ObjectWriter BODY_WRITER = Jackson2ObjectMapperBuilder.json()
+            .mixIn(Result.Entity.class, EntityMixIn.class)
+            .build()
+            .writerFor(Result.Entity.class);
+
     private final List<HttpMessageReader<?>> messageReaders;
 
     private final Map<String, MessageBodyDecoder> messageBodyDecoders;
@@ -49,15 +72,23 @@ public class SignServerHttpResponse extends ServerHttpResponseDecorator {
 
     private final ServerWebExchange exchange;
 
+    private final KeyCache keyCache;
+
+    private final CryptoScheduler cryptoScheduler;
+
     public SignServerHttpResponse(
             ServerWebExchange exchange,
             List<HttpMessageReader<?>> messageReaders,
             Set<MessageBodyDecoder> messageBodyDecoders,
-            Set<MessageBodyEncoder> messageBodyEncoders
+            Set<MessageBodyEncoder> messageBodyEncoders,
+            KeyCache keyCache,
+            CryptoScheduler cryptoScheduler
     ) {
         super(exchange.getResponse());
         this.exchange = exchange;
         this.messageReaders = messageReaders;
+        this.keyCache = keyCache;
+        this.cryptoScheduler = cryptoScheduler;
 
         this.messageBodyDecoders = messageBodyDecoders.stream().collect(Collectors.toMap(MessageBodyDecoder::encodingType, identity()));
         this.messageBodyEncoders = messageBodyEncoders.stream().collect(Collectors.toMap(MessageBodyEncoder::encodingType, identity()));
@@ -84,31 +115,37 @@ public class SignServerHttpResponse extends ServerHttpResponseDecorator {
         ClientResponse clientResponse = prepareClientResponse(body, httpHeaders);
 
         // TODO: flux or mono
-        Mono<Result.Entity> modifiedBody = extractBody(clientResponse, Result.Entity.class)
-                .flatMap(originalBody -> {
+        Mono<DataBuffer> modifiedBody = extractBody(clientResponse, Result.Entity.class)
+                .flatMap(originalBody -> cryptoScheduler.execute(() -> {
                     try {
                         // 通过验签的入口存放到request中
                         Client client = exchange.getRequiredAttribute("client");
-                        String sign = sign(client.getPrivateKey(), originalBody);
+                        // payload 只序列化一次, 同时用于签名数据及响应体
+                        byte[] payload = null == originalBody.getPayload() ? null : SignDataUtils.getSignText(originalBody.getPayload());
+                        if (null != payload && payload.length == 0) {
+                            throw new ServiceException("响应数据序列化失败");
+                        }
+                        String sign = sign(client, payload, originalBody.getStatus());
                         response.getHeaders().add(HttpHeader.SIGNATURE, sign);
-                        return Mono.just(originalBody);
+                        byte[] signedPayload = hasNullValue(originalBody.getPayload()) ? null : payload;
+                        return BODY_WRITER.withAttribute(SIGNED_PAYLOAD, signedPayload).writeValueAsBytes(originalBody);
                     } catch (Exception e) {
                         LOGGER.error("响应结果处理失败: {}", e.getMessage(), e);
-                        return Mono.error(e);
+                        throw e;
                     }
-                });
-
-        BodyInserter<Mono<Result.Entity>, ReactiveHttpOutputMessage> bodyInserter = BodyInserters.fromPublisher(modifiedBody, Result.Entity.class);
-        CachedBodyOutputMessage outputMessage = new CachedBodyOutputMessage(exchange, getHeaders());
-        return bodyInserter.insert(outputMessage, new BodyInserterContext()).then(Mono.defer(() -> {
-            Mono<DataBuffer> messageBody = writeBody(outputMessage, Result.Entity.class);
-            HttpHeaders headers = getHeaders();
-            if (!headers.containsKey(HttpHeaders.TRANSFER_ENCODING) || headers.containsKey(HttpHeaders.CONTENT_LENGTH)) {
-                messageBody = messageBody.doOnNext(data -> headers.setContentLength(data.readableByteCount()));
-            }
-            // TODO: fail if isStreamingMediaType?
-            return getDelegate().writeWith(messageBody);
-        }));
+                }))
+                .map(bytes -> bufferFactory().wrap(bytes));
+
+        Mono<DataBuffer> messageBody = writeBody(modifiedBody);
+        HttpHeaders headers = getHeaders();
+        if (null == headers.getContentType()) {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+        if (!headers.containsKey(HttpHeaders.TRANSFER_ENCODING) || headers.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+            messageBody = messageBody.doOnNext(data -> headers.setContentLength(data.readableByteCount()));
+        }
+        // TODO: fail if isStreamingMediaType?
+        return getDelegate().writeWith(messageBody);
     }
 
     @Override
@@ -145,12 +182,7 @@ public class SignServerHttpResponse extends ServerHttpResponseDecorator {
         return clientResponse.bodyToMono(inClass);
     }
 
-    private Mono<DataBuffer> writeBody(CachedBodyOutputMessage message, Class<?> outClass) {
-        Mono<DataBuffer> response = DataBufferUtils.join(message.getBody());
-//        if (byte[].class.isAssignableFrom(outClass)) {
-//            return response;
-//        }
-
+    private Mono<DataBuffer> writeBody(Mono<DataBuffer> response) {
         List<String> encodingHeaders = getHeaders().getOrEmpty(HttpHeaders.CONTENT_ENCODING);
         for (String encoding : encodingHeaders) {
             MessageBodyEncoder encoder = messageBodyEncoders.get(encoding);
@@ -168,36 +200,181 @@ public class SignServerHttpResponse extends ServerHttpResponseDecorator {
         return response;
     }
 
-    protected String sign(String privateKey, Result.Entity body) {
+    /**
+     * @param payload 已序列化的 payload, 签名数据见 {@link SignDataUtils#entitySignText(byte[], String)}
+     * @param status  响应状态码
+     */
+    protected String sign(Client client, byte[] payload, String status) {
 //        if (null != properties.getDisabledSignVerify() && properties.getDisabledSignVerify()) {
 //            LOGGER.warn("禁用请求签名验证");
 //            return "";
 //        }
         try {
-            String bodyStr = SignDataUtils.getSignStr(new Entity(body));
-            String sign = SignDataUtils.getSign(new Entity(body), privateKey);
-            LOGGER.debug("签名数据[{}],响应数据签名:[{}]", bodyStr, sign);
-            return sign;
+            PrivateKey privateKey = keyCache.privateKey(client.getId(), client.getPrivateKey());
+            return SignDataUtils.signEntity(payload, status, privateKey);
         } catch (Exception e) {
             LOGGER.error("签名失败->{}", e.getMessage(), e);
         }
         return "";
     }
 
-    @Data
-    private static class Entity implements java.io.Serializable {
+    /**
+     * @return Map 中是否有值为 null 的字段
+     */
+    private static boolean hasNullValue(Object value) {
+        if (value instanceof Map) {
+            for (Object item : ((Map<?, ?>) value).values()) {
+                if (null == item || hasNullValue(item)) {
+                    return true;
+                }
+            }
+        } else if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                if (hasNullValue(item)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private abstract static class EntityMixIn {
+
+        @JsonSerialize(using = SignedPayloadSerializer.class)
+        abstract Object getPayload();
+    }
+
+    /**
+     * 输出签名时已序列化的 payload, 不再重新序列化; 没有时使用默认序列化
+     */
+    private static class SignedPayloadSerializer extends JsonSerializer<Object> {
+
+        @Override
+        public void serialize(Object value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            byte[] payload = (byte[]) serializers.getAttribute(SIGNED_PAYLOAD);
+            if (null == payload) {
+                serializers.defaultSerializeValue(value, gen);
+                return;
+            }
+            gen.writeRawValue(new RawUtf8(payload));
+        }
+    }
+
+    /**
+     * 已编码为 UTF-8 的原始 JSON, 输出为字节时直接复制, 不解码为字符串
+     */
+    private static class RawUtf8 implements SerializableString {
+
+        private final byte[] value;
+
+        private String text;
+
+        RawUtf8(byte[] value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getValue() {
+            if (null == text) {
+                text = new String(value, StandardCharsets.UTF_8);
+            }
+            return text;
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return JsonStringEncoder.getInstance().quoteAsString(getValue());
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return value;
+        }
 
-        private static final long serialVersionUID = 7997940947074948716L;
+        @Override
+        public byte[] asQuotedUTF8() {
+            return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+        }
 
-        private String status;
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return append(asQuotedUTF8(), buffer, offset);
+        }
 
-        private Object payload;
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return append(asQuotedChars(), buffer, offset);
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            return append(value, buffer, offset);
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            return append(getValue().toCharArray(), buffer, offset);
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            byte[] quoted = asQuotedUTF8();
+            out.write(quoted);
+            return quoted.length;
+        }
 
-        Entity(Result.Entity entity) {
-            this.status = entity.getStatus();
-            this.payload = entity.getPayload();
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(value);
+            return value.length;
         }
 
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            return put(asQuotedUTF8(), buffer);
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            return put(value, buffer);
+        }
+
+        @Override
+        public String toString() {
+            return getValue();
+        }
+
+        /**
+         * @return 复制的长度, 空间不足时返回 -1
+         */
+        private static int append(byte[] src, byte[] buffer, int offset) {
+            if (offset + src.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(src, 0, buffer, offset, src.length);
+            return src.length;
+        }
+
+        private static int append(char[] src, char[] buffer, int offset) {
+            if (offset + src.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(src, 0, buffer, offset, src.length);
+            return src.length;
+        }
+
+        private static int put(byte[] src, ByteBuffer buffer) {
+            if (src.length > buffer.remaining()) {
+                return -1;
+            }
+            buffer.put(src);
+            return src.length;
+        }
     }
 
 }
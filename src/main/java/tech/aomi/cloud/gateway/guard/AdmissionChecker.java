@@ -0,0 +1,184 @@
+package tech.aomi.cloud.gateway.guard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.constant.MessageVersion;
+import tech.aomi.cloud.gateway.controller.RequestMessage;
+import tech.aomi.cloud.gateway.controller.SignType;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 请求报文准入检查
+ * 在查询客户端、签名验证、解密之前执行, 按开销从小到大依次检查, 前面的检查不分配内存:
+ * 必填字段 -> Base64 格式及长度 -> 时间格式 -> 时间偏差 -> 签名方式 -> 字符集
+ * 每种拒绝原因单独计数, 时间偏差由 {@link ReplayGuard} 计数
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Component
+public class AdmissionChecker {
+
+    private static final String TIMESTAMP_SHAPE = "0000-00-00 00:00:00.000";
+
+    private final ReplayGuard replayGuard;
+
+    private final int maxKeyLength;
+
+    private final int maxPayloadLength;
+
+    private final Map<Reason, Counter> rejected = new EnumMap<>(Reason.class);
+
+    public AdmissionChecker(ReplayGuard replayGuard, GatewayProperties properties, MeterRegistry meterRegistry) {
+        this.replayGuard = replayGuard;
+        GatewayProperties.Admission config = properties.getAdmission();
+        this.maxKeyLength = config.getMaxKeyLength();
+        this.maxPayloadLength = config.getMaxPayloadLength();
+        for (Reason reason : Reason.values()) {
+            rejected.put(reason, Counter.builder("gateway.admission.rejected")
+                    .description("准入检查拒绝的请求数")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 检查请求报文
+     *
+     * @param version 报文版本
+     * @param body    请求报文
+     * @param payload payload 密文, 流式解析时不在请求报文中
+     * @return 请求时间毫秒数, 用于重放检查
+     * @throws IllegalArgumentException 请求报文不合法
+     */
+    public long check(MessageVersion version, RequestMessage body, CharSequence payload) {
+        boolean v3 = MessageVersion.V3_0_0 == version;
+        boolean session = !v3 && isNotEmpty(body.getSessionId());
+
+        require(body.getClientId(), "ClientId 不能为空");
+        if (v3) {
+            require(body.getEpk(), "epk 不能为空");
+            require(payload, "payload 不能为空");
+        } else if (!session) {
+            require(body.getTrk(), "trk 不能为空");
+        }
+        require(body.getTimestamp(), "timestamp 不能为空");
+        require(body.getRandomString(), "randomString 不能为空");
+        if (!v3) {
+            require(body.getSign(), "sign 不能为空");
+        }
+
+        base64(body.getTrk(), maxKeyLength, "trk");
+        base64(body.getEpk(), maxKeyLength, "epk");
+        base64(body.getSign(), maxKeyLength, "sign");
+        base64(payload, maxPayloadLength, "payload");
+
+        if (!isTimestamp(body.getTimestamp())) {
+            throw reject(Reason.TIMESTAMP_FORMAT, "timestamp 格式不正确");
+        }
+        long time = replayGuard.checkTimestamp(body.getTimestamp());
+
+        if (!v3 && null == body.getSignType()) {
+            throw reject(Reason.SIGN_TYPE, "signType 不正确");
+        }
+        if (session && SignType.HMAC_SHA256 != body.getSignType()) {
+            throw reject(Reason.SIGN_TYPE, "使用会话时 signType 必须为 HMAC_SHA256");
+        }
+        if (null != body.getCharset() && !isSupported(body.getCharset())) {
+            throw reject(Reason.CHARSET, "charset 不正确");
+        }
+        return time;
+    }
+
+    private void require(CharSequence value, String message) {
+        if (!isNotEmpty(value)) {
+            throw reject(Reason.MISSING, message);
+        }
+    }
+
+    /**
+     * 可以为空, 不为空时必须是标准 Base64 格式且不超过最大长度
+     */
+    private void base64(CharSequence value, int maxLength, String name) {
+        if (null == value) {
+            return;
+        }
+        if (value.length() > maxLength) {
+            throw reject(Reason.LENGTH, name + " 长度超出限制");
+        }
+        if (!isBase64(value)) {
+            throw reject(Reason.BASE64, name + " 不是Base64格式");
+        }
+    }
+
+    private IllegalArgumentException reject(Reason reason, String message) {
+        rejected.get(reason).increment();
+        LOGGER.debug("请求报文准入检查未通过: {}, {}", reason, message);
+        return new IllegalArgumentException(message);
+    }
+
+    private static boolean isNotEmpty(CharSequence value) {
+        return null != value && value.length() > 0;
+    }
+
+    private static boolean isBase64(CharSequence value) {
+        int length = value.length();
+        if (length % 4 != 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/') {
+                continue;
+            }
+            // 补位字符只能出现在最后两位
+            if (c == '=' && i >= length - 2 && (i == length - 1 || value.charAt(length - 1) == '=')) {
+                continue;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 检查格式 yyyy-MM-dd HH:mm:ss.SSS
+     */
+    private static boolean isTimestamp(String value) {
+        if (value.length() != TIMESTAMP_SHAPE.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char expected = TIMESTAMP_SHAPE.charAt(i);
+            char c = value.charAt(i);
+            if (expected == '0' ? (c < '0' || c > '9') : c != expected) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSupported(String charset) {
+        try {
+            return Charset.isSupported(charset);
+        } catch (IllegalCharsetNameException e) {
+            return false;
+        }
+    }
+
+    enum Reason {
+        MISSING,
+        LENGTH,
+        BASE64,
+        TIMESTAMP_FORMAT,
+        SIGN_TYPE,
+        CHARSET
+    }
+}
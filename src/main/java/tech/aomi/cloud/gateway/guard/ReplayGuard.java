@@ -0,0 +1,263 @@
+package tech.aomi.cloud.gateway.guard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.constant.Common;
+import tech.aomi.common.exception.ErrorCode;
+import tech.aomi.common.exception.ServiceException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 重放攻击防护
+ * 请求时间必须在允许的时间偏差内, 时间偏差内同一个客户端的 randomString 只能使用一次
+ * randomString 按请求时间分桶保存, 桶超出时间窗口后整体丢弃, 内存占用有上限
+ * 签名验证、解密之前只检查是否重复, 签名验证通过后才记录, 未通过验证的请求不能占用其他请求的 randomString
+ * 每个客户端在桶中的容量固定, 超出时只拒绝该客户端; 桶总容量超出时不再记录并计数, 不影响其他客户端
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Component
+public class ReplayGuard {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(Common.TIMESTAMP_FORMAT);
+
+    private final boolean enabled;
+
+    private final long skewMillis;
+
+    private final long bucketMillis;
+
+    private final int bucketCapacity;
+
+    private final int clientCapacity;
+
+    /**
+     * 环形数组, 时间窗口内的桶编号对数组长度取模后不会冲突
+     */
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Counter timestampRejected;
+
+    private final Counter replayRejected;
+
+    private final Counter fullRejected;
+
+    private final Counter unrecorded;
+
+    public ReplayGuard(GatewayProperties properties, MeterRegistry meterRegistry) {
+        GatewayProperties.Replay config = properties.getReplay();
+        this.enabled = config.isEnabled();
+        this.skewMillis = config.getSkew().toMillis();
+        // 时间窗口 [now - skew, now + skew] 分成 n 个桶, 向上取整保证 n 个桶覆盖整个窗口
+        int n = Math.max(1, config.getBuckets());
+        this.bucketMillis = Math.max(1, (2 * skewMillis + n - 1) / n);
+        this.buckets = new AtomicReferenceArray<>(n + 1);
+        this.bucketCapacity = (int) Math.max(1, config.getMaximumSize() / (n + 1));
+        this.clientCapacity = (int) Math.max(1, config.getClientMaximumSize() / (n + 1));
+
+        this.timestampRejected = rejected(meterRegistry, "timestamp");
+        this.replayRejected = rejected(meterRegistry, "replay");
+        this.fullRejected = rejected(meterRegistry, "full");
+        this.unrecorded = Counter.builder("gateway.replay.unrecorded")
+                .description("重放防护记录已满, 未记录 randomString 的请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 检查请求时间
+     *
+     * @param timestamp 请求时间, 格式: yyyy-MM-dd HH:mm:ss.SSS
+     * @return 请求时间毫秒数
+     * @throws ServiceException 格式错误或超出允许的时间偏差
+     */
+    public long checkTimestamp(String timestamp) {
+        if (!enabled) {
+            return 0;
+        }
+        long time;
+        try {
+            time = LocalDateTime.parse(timestamp, FORMATTER).atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException | NullPointerException e) {
+            timestampRejected.increment();
+            throw paramsError("timestamp 格式不正确");
+        }
+        if (Math.abs(System.currentTimeMillis() - time) > skewMillis) {
+            timestampRejected.increment();
+            LOGGER.warn("请求时间超出允许范围: {}", timestamp);
+            throw paramsError("请求时间超出允许范围");
+        }
+        return time;
+    }
+
+    /**
+     * 检查 randomString 是否已经使用过, 只检查不记录, 在签名验证之前执行
+     *
+     * @param clientId     客户端ID
+     * @param time         {@link #checkTimestamp(String)} 返回的请求时间
+     * @param randomString 随机字符串
+     * @throws ServiceException 请求时间超出范围或重复请求
+     */
+    public void checkNonce(String clientId, long time, String randomString) {
+        if (!enabled) {
+            return;
+        }
+        if (bucket(clientId, time).contains(clientId, randomString)) {
+            replayRejected.increment();
+            LOGGER.warn("重复请求: {}, {}", clientId, randomString);
+            throw paramsError("重复请求");
+        }
+    }
+
+    /**
+     * 记录 randomString, 签名验证通过后执行
+     * 桶总容量已满时不记录, 计数后放行
+     *
+     * @param clientId     客户端ID
+     * @param time         {@link #checkTimestamp(String)} 返回的请求时间
+     * @param randomString 随机字符串
+     * @throws ServiceException 重复请求或客户端记录已满
+     */
+    public void recordNonce(String clientId, long time, String randomString) {
+        if (!enabled) {
+            return;
+        }
+        switch (bucket(clientId, time).add(clientId, randomString)) {
+            case DUPLICATE:
+                replayRejected.increment();
+                LOGGER.warn("重复请求: {}, {}", clientId, randomString);
+                throw paramsError("重复请求");
+            case CLIENT_FULL:
+                fullRejected.increment();
+                LOGGER.warn("客户端重放防护记录已满, 拒绝请求: {}", clientId);
+                throw new ServiceException("服务繁忙,请稍后重试");
+            case FULL:
+                unrecorded.increment();
+                LOGGER.warn("重放防护记录已满, 未记录: {}, {}", clientId, randomString);
+                break;
+            default:
+        }
+    }
+
+    private Bucket bucket(String clientId, long time) {
+        Bucket bucket = bucket(Math.floorDiv(time, bucketMillis));
+        if (null == bucket) {
+            timestampRejected.increment();
+            LOGGER.warn("请求时间超出允许范围: {}", clientId);
+            throw paramsError("请求时间超出允许范围");
+        }
+        return bucket;
+    }
+
+    /**
+     * 获取编号对应的桶, 槽位中的旧桶已超出时间窗口, 直接整体替换
+     *
+     * @return 桶, 请求时间比槽位中的桶更早时为空
+     */
+    private Bucket bucket(long index) {
+        int slot = (int) Math.floorMod(index, (long) buckets.length());
+        while (true) {
+            Bucket current = buckets.get(slot);
+            if (null != current && current.index == index) {
+                return current;
+            }
+            if (null != current && current.index > index) {
+                return null;
+            }
+            Bucket fresh = new Bucket(index, bucketCapacity, clientCapacity);
+            if (buckets.compareAndSet(slot, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("gateway.replay.rejected")
+                .description("重放防护拒绝的请求数")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static ServiceException paramsError(String message) {
+        ServiceException se = new ServiceException(message);
+        se.setErrorCode(ErrorCode.PARAMS_ERROR);
+        return se;
+    }
+
+    private enum AddResult {
+        ADDED,
+        DUPLICATE,
+        CLIENT_FULL,
+        FULL
+    }
+
+    private static final class Bucket {
+
+        private final long index;
+
+        private final int capacity;
+
+        private final int clientCapacity;
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * clientId -> randomString
+         */
+        private final Map<String, Nonces> clients = new ConcurrentHashMap<>();
+
+        Bucket(long index, int capacity, int clientCapacity) {
+            this.index = index;
+            this.capacity = capacity;
+            this.clientCapacity = clientCapacity;
+        }
+
+        boolean contains(String clientId, String nonce) {
+            Nonces nonces = clients.get(clientId);
+            return null != nonces && nonces.values.contains(nonce);
+        }
+
+        AddResult add(String clientId, String nonce) {
+            Nonces nonces = clients.computeIfAbsent(clientId, k -> new Nonces());
+            if (nonces.values.contains(nonce)) {
+                return AddResult.DUPLICATE;
+            }
+            if (nonces.size.incrementAndGet() > clientCapacity) {
+                nonces.size.decrementAndGet();
+                return AddResult.CLIENT_FULL;
+            }
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                nonces.size.decrementAndGet();
+                return AddResult.FULL;
+            }
+            if (nonces.values.add(nonce)) {
+                return AddResult.ADDED;
+            }
+            size.decrementAndGet();
+            nonces.size.decrementAndGet();
+            return AddResult.DUPLICATE;
+        }
+    }
+
+    private static final class Nonces {
+
+        private final Set<String> values = ConcurrentHashMap.newKeySet();
+
+        private final AtomicInteger size = new AtomicInteger();
+    }
+}
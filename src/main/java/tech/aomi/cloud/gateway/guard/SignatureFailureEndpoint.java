@@ -0,0 +1,45 @@
+package tech.aomi.cloud.gateway.guard;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 签名验证失败限制管理端点
+ * 查看阈值、冷却时间及当前被限制的客户端、IP, 可以手动解除限制
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Component
+@Endpoint(id = "signaturefailures")
+public class SignatureFailureEndpoint {
+
+    private final SignatureFailureGuard signatureFailureGuard;
+
+    public SignatureFailureEndpoint(SignatureFailureGuard signatureFailureGuard) {
+        this.signatureFailureGuard = signatureFailureGuard;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("window", signatureFailureGuard.getWindow().toString());
+        status.put("threshold", signatureFailureGuard.getThreshold());
+        status.put("coolDown", signatureFailureGuard.getCoolDown().toString());
+        status.put("blocked", signatureFailureGuard.getBlocked());
+        return status;
+    }
+
+    /**
+     * @param key client:{clientId} 或 ip:{ip}
+     */
+    @DeleteOperation
+    public void unblock(@Selector String key) {
+        signatureFailureGuard.unblock(key);
+    }
+}
@@ -0,0 +1,288 @@
+package tech.aomi.cloud.gateway.guard;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.controller.ResponseMessage;
+import tech.aomi.common.exception.ServiceException;
+import tech.aomi.common.utils.json.Json;
+import tech.aomi.common.web.controller.Result;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 签名验证失败次数限制
+ * 按客户端ID、来源IP分别统计滑动窗口内的签名验证失败次数, 超过阈值后在冷却时间内直接拒绝请求
+ * 来源IP统计默认关闭: 部署在 ingress 之后时所有请求的连接地址相同, 需要配置可信代理层数后从 X-Forwarded-For 取客户端地址
+ * 未启用或无法获取来源IP时只按客户端ID统计
+ * 拒绝时返回预先序列化的错误信息, 不查询秘钥、不执行任何加解密
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Component
+public class SignatureFailureGuard {
+
+    private static final String CLIENT_PREFIX = "client:";
+
+    private static final String IP_PREFIX = "ip:";
+
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private static final String BLOCKED_MESSAGE = "签名校验失败次数过多,请稍后重试";
+
+    private final boolean enabled;
+
+    private final boolean ipEnabled;
+
+    private final int trustedProxies;
+
+    @Getter
+    private final Duration window;
+
+    @Getter
+    private final int threshold;
+
+    @Getter
+    private final Duration coolDown;
+
+    private final Cache<String, Window> failures;
+
+    private final Cache<String, Block> blocked;
+
+    /**
+     * 预先序列化的错误响应
+     */
+    private final byte[] blockedBody;
+
+    private final Counter clientFailures;
+
+    private final Counter ipFailures;
+
+    private final Counter rejected;
+
+    public SignatureFailureGuard(GatewayProperties properties, MeterRegistry meterRegistry) {
+        GatewayProperties.SignatureFailure config = properties.getSignatureFailure();
+        this.enabled = config.isEnabled();
+        this.ipEnabled = config.getIp().isEnabled();
+        this.trustedProxies = config.getIp().getTrustedProxies();
+        this.window = config.getWindow();
+        this.threshold = config.getThreshold();
+        this.coolDown = config.getCoolDown();
+        // 上一个窗口的数据参与计算, 两个窗口内没有失败的记录可以删除
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterAccess(window.multipliedBy(2))
+                .build();
+        this.blocked = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(coolDown)
+                .build();
+
+        ServiceException se = new ServiceException(BLOCKED_MESSAGE);
+        Result.Entity entity = Result.create(se.getErrorCode(), se.getMessage(), null).getBody();
+        ResponseMessage message = new ResponseMessage();
+        message.setSuccess(false);
+        message.setStatus(null == entity ? null : entity.getStatus());
+        message.setDescribe(BLOCKED_MESSAGE);
+        this.blockedBody = Json.toJson(message.toMap()).toString().getBytes(StandardCharsets.UTF_8);
+
+        this.clientFailures = failures(meterRegistry, "client");
+        this.ipFailures = failures(meterRegistry, "ip");
+        this.rejected = Counter.builder("gateway.signature.blocked")
+                .description("签名验证失败次数过多被拒绝的请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 来源IP是否被限制
+     */
+    public boolean isBlocked(ServerWebExchange exchange) {
+        return enabled && isIpBlocked(exchange);
+    }
+
+    /**
+     * 客户端或来源IP是否被限制
+     */
+    public boolean isBlocked(ServerWebExchange exchange, String clientId) {
+        return enabled && (isBlocked(CLIENT_PREFIX + clientId) || isIpBlocked(exchange));
+    }
+
+    /**
+     * 记录一次签名验证失败, 超过阈值时开始限制
+     *
+     * @param exchange 请求
+     * @param clientId 客户端ID
+     */
+    public void recordFailure(ServerWebExchange exchange, String clientId) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        clientFailures.increment();
+        record(CLIENT_PREFIX + clientId, now);
+        String ip = ip(exchange);
+        if (null != ip) {
+            ipFailures.increment();
+            record(IP_PREFIX + ip, now);
+        }
+    }
+
+    /**
+     * 返回预先序列化的错误信息
+     */
+    public Mono<Void> reject(ServerWebExchange exchange) {
+        rejected.increment();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(blockedBody.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(blockedBody)));
+    }
+
+    /**
+     * @return 当前被限制的客户端及IP
+     */
+    public Collection<Block> getBlocked() {
+        return blocked.asMap().values();
+    }
+
+    /**
+     * 解除限制
+     *
+     * @param key client:{clientId} 或 ip:{ip}
+     */
+    public void unblock(String key) {
+        blocked.invalidate(key);
+        failures.invalidate(key);
+    }
+
+    private boolean isIpBlocked(ServerWebExchange exchange) {
+        String ip = ip(exchange);
+        return null != ip && isBlocked(IP_PREFIX + ip);
+    }
+
+    private boolean isBlocked(String key) {
+        return null != blocked.getIfPresent(key);
+    }
+
+    private void record(String key, long now) {
+        double[] count = new double[1];
+        failures.asMap().compute(key, (k, current) -> {
+            Window w = null == current ? new Window() : current;
+            count[0] = w.add(now, window.toMillis());
+            return w;
+        });
+        if (count[0] >= threshold) {
+            blocked.asMap().computeIfAbsent(key, k -> {
+                LOGGER.warn("签名验证失败次数过多, 限制请求: {}, {}", key, (long) count[0]);
+                return new Block(key, now, now + coolDown.toMillis(), (long) count[0]);
+            });
+        }
+    }
+
+    /**
+     * @return 来源IP, 未启用或无法获取时为空
+     */
+    private String ip(ServerWebExchange exchange) {
+        if (!ipEnabled) {
+            return null;
+        }
+        if (trustedProxies > 0) {
+            return forwardedFor(exchange.getRequest().getHeaders());
+        }
+        return Optional.ofNullable(exchange.getRequest().getRemoteAddress())
+                .map(InetSocketAddress::getAddress)
+                .map(address -> address.getHostAddress())
+                .orElse(null);
+    }
+
+    /**
+     * 每一层代理在 X-Forwarded-For 末尾追加其连接的来源地址, 从右数第 trustedProxies 个地址由最外层可信代理写入
+     *
+     * @return 客户端地址, 地址数量少于可信代理层数时为空
+     */
+    private String forwardedFor(HttpHeaders headers) {
+        List<String> values = headers.get(X_FORWARDED_FOR);
+        if (null == values) {
+            return null;
+        }
+        String[] addresses = String.join(",", values).split(",");
+        if (addresses.length < trustedProxies) {
+            return null;
+        }
+        String address = addresses[addresses.length - trustedProxies].trim();
+        return address.isEmpty() ? null : address;
+    }
+
+    private static Counter failures(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("gateway.signature.failures")
+                .description("签名验证失败次数")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 被限制的客户端或IP
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Block {
+
+        /**
+         * client:{clientId} 或 ip:{ip}
+         */
+        private final String key;
+
+        private final long blockedAt;
+
+        private final long until;
+
+        /**
+         * 开始限制时窗口内的失败次数
+         */
+        private final long failures;
+    }
+
+    /**
+     * 滑动窗口计数, 使用当前窗口计数加上一个窗口按剩余比例折算的计数近似
+     * 只在 compute 中修改, 同一个 key 的修改互斥
+     */
+    private static final class Window {
+
+        private long index;
+
+        private int current;
+
+        private int previous;
+
+        double add(long now, long size) {
+            long i = now / size;
+            if (i != index) {
+                previous = i == index + 1 ? current : 0;
+                current = 0;
+                index = i;
+            }
+            current++;
+            double weight = 1 - (double) (now % size) / size;
+            return previous * weight + current;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package tech.aomi.cloud.gateway.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.entity.Client;
+
+/**
+ * 客户端响应式仓库
+ * 网关过滤器中使用,避免在Netty事件循环线程中阻塞访问Mongo
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Repository
+public interface ReactiveClientRepository extends ReactiveMongoRepository<Client, String> {
+
+    Mono<Client> findByCode(String code);
+
+}
@@ -3,15 +3,17 @@ package tech.aomi.cloud.gateway.service;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import tech.aomi.cloud.gateway.api.ClientService;
+import tech.aomi.cloud.gateway.cache.ClientCache;
 import tech.aomi.cloud.gateway.dto.CreateClientDto;
 import tech.aomi.cloud.gateway.dto.UpdateClientDto;
 import tech.aomi.cloud.gateway.entity.Client;
 import tech.aomi.cloud.gateway.repository.ClientRepository;
 import tech.aomi.common.exception.ResourceNonExistException;
 
+import java.util.Date;
+
 /**
  * @author Sean createAt 2021/6/23
  */
@@ -22,6 +24,9 @@ public class ClientServiceImpl implements ClientService {
     @Autowired
     private ClientRepository clientRepository;
 
+    @Autowired
+    private ClientCache clientCache;
+
     @Override
     public Client getClient(String clientId) {
         return clientRepository.findById(clientId).orElse(null);
@@ -45,12 +50,27 @@ public class ClientServiceImpl implements ClientService {
         client.setClientPublicKey(dto.getClientPublicKey());
         client.setPublicKey(dto.getPublicKey());
         client.setPrivateKey(dto.getPrivateKey());
+        client.setHmacSecret(dto.getHmacSecret());
+        client.setClientEd25519PublicKey(dto.getClientEd25519PublicKey());
+        client.setEd25519PublicKey(dto.getEd25519PublicKey());
+        client.setEd25519PrivateKey(dto.getEd25519PrivateKey());
+        client.setClientEcPublicKey(dto.getClientEcPublicKey());
+        client.setEcPublicKey(dto.getEcPublicKey());
+        client.setEcPrivateKey(dto.getEcPrivateKey());
+        client.setClientX25519PublicKey(dto.getClientX25519PublicKey());
+        client.setX25519PublicKey(dto.getX25519PublicKey());
+        client.setX25519PrivateKey(dto.getX25519PrivateKey());
+        client.setSignType(dto.getSignType());
+        client.setTrkReuseSeconds(dto.getTrkReuseSeconds());
+        client.setTrkReuseCount(dto.getTrkReuseCount());
         client.setPlatform(dto.getPlatform());
-        return clientRepository.save(client);
+        client.setUpdateAt(new Date());
+        client = clientRepository.save(client);
+        clientCache.evict(client);
+        return client;
     }
 
     @Override
-    @CacheEvict(key = "#result.id")
     public Client update(UpdateClientDto dto) {
         if (StringUtils.isEmpty(dto.getId()) && StringUtils.isEmpty(dto.getCode())) {
             throw new IllegalArgumentException("ID 或者 Code 必填其一");
@@ -71,6 +91,22 @@ public class ClientServiceImpl implements ClientService {
         client.setClientPublicKey(dto.getClientPublicKey());
         client.setPublicKey(dto.getPublicKey());
         client.setPrivateKey(dto.getPrivateKey());
-        return clientRepository.save(client);
+        client.setHmacSecret(dto.getHmacSecret());
+        client.setClientEd25519PublicKey(dto.getClientEd25519PublicKey());
+        client.setEd25519PublicKey(dto.getEd25519PublicKey());
+        client.setEd25519PrivateKey(dto.getEd25519PrivateKey());
+        client.setClientEcPublicKey(dto.getClientEcPublicKey());
+        client.setEcPublicKey(dto.getEcPublicKey());
+        client.setEcPrivateKey(dto.getEcPrivateKey());
+        client.setClientX25519PublicKey(dto.getClientX25519PublicKey());
+        client.setX25519PublicKey(dto.getX25519PublicKey());
+        client.setX25519PrivateKey(dto.getX25519PrivateKey());
+        client.setSignType(dto.getSignType());
+        client.setTrkReuseSeconds(dto.getTrkReuseSeconds());
+        client.setTrkReuseCount(dto.getTrkReuseCount());
+        client.setUpdateAt(new Date());
+        client = clientRepository.save(client);
+        clientCache.evict(client);
+        return client;
     }
 }
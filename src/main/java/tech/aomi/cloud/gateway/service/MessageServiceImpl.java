@@ -5,36 +5,61 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
-import org.springframework.util.Assert;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.server.ServerWebExchange;
-import tech.aomi.cloud.gateway.api.ClientService;
+import reactor.core.publisher.Mono;
 import tech.aomi.cloud.gateway.api.MessageService;
+import tech.aomi.cloud.gateway.api.ReactiveClientService;
+import tech.aomi.cloud.gateway.cache.ClientSnapshot;
 import tech.aomi.cloud.gateway.constant.Common;
-import tech.aomi.cloud.gateway.constant.Header;
 import tech.aomi.cloud.gateway.constant.MessageVersion;
 import tech.aomi.cloud.gateway.controller.RequestMessage;
 import tech.aomi.cloud.gateway.controller.ResponseMessage;
 import tech.aomi.cloud.gateway.controller.SignType;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
+import tech.aomi.cloud.gateway.crypto.OutboundTrkCache;
+import tech.aomi.cloud.gateway.crypto.SignData;
+import tech.aomi.cloud.gateway.crypto.TrkCache;
 import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.filter.message.DecryptedBody;
+import tech.aomi.cloud.gateway.filter.message.DecryptedMessage;
+import tech.aomi.cloud.gateway.filter.message.EnvelopeWriter;
 import tech.aomi.cloud.gateway.filter.message.MessageContext;
+import tech.aomi.cloud.gateway.filter.message.RawResultDecoder;
+import tech.aomi.cloud.gateway.guard.AdmissionChecker;
+import tech.aomi.cloud.gateway.guard.ReplayGuard;
+import tech.aomi.cloud.gateway.session.Session;
+import tech.aomi.cloud.gateway.session.SessionStore;
 import tech.aomi.common.exception.ErrorCode;
 import tech.aomi.common.exception.ServiceException;
 import tech.aomi.common.exception.SignatureException;
 import tech.aomi.common.utils.crypto.AesUtils;
-import tech.aomi.common.utils.crypto.RSA;
-import tech.aomi.common.utils.crypto.RSAUtil;
 import tech.aomi.common.utils.json.Json;
 import tech.aomi.common.web.controller.Result;
 
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -46,8 +71,31 @@ import java.util.UUID;
 @Service
 public class MessageServiceImpl implements MessageService {
 
+    /**
+     * 分段处理 payload 时每段的字符数, 4 的倍数
+     */
+    private static final int STREAM_CHUNK_SIZE = 8192;
+
+    @Autowired
+    private ReactiveClientService reactiveClientService;
+
+    @Autowired
+    private KeyCache keyCache;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private TrkCache trkCache;
+
+    @Autowired
+    private OutboundTrkCache outboundTrkCache;
+
+    @Autowired
+    private ReplayGuard replayGuard;
+
     @Autowired
-    private ClientService clientService;
+    private AdmissionChecker admissionChecker;
 
     @Override
     public String requestId() {
@@ -82,40 +130,61 @@ public class MessageServiceImpl implements MessageService {
 
     @Override
     public byte[] getSignData(RequestMessage body) {
-        String signData = body.getTimestamp() + body.getRandomString() + StringUtils.trimToEmpty(body.getPayload());
-        LOGGER.debug("请求签名数据: [{}]", signData);
-        return signData.getBytes(body.charset());
+        return signData(body).toByteArray();
     }
 
     @Override
     public byte[] getSignData(ResponseMessage body) {
-        String signData = body.getTimestamp() + body.getRandomString() + StringUtils.trimToEmpty(body.getPayload());
+        return signData(body).toByteArray();
+    }
+
+    @Override
+    public SignData signData(RequestMessage body) {
+        SignData signData = SignData.of(body.charset(), body.getTimestamp(), body.getRandomString(), SignData.trim(body.getPayload()));
+        LOGGER.debug("请求签名数据: [{}]", signData);
+        return signData;
+    }
+
+    @Override
+    public SignData signData(ResponseMessage body) {
+        SignData signData = SignData.of(body.charset(), body.getTimestamp(), body.getRandomString(), SignData.trim(body.getPayload()));
         LOGGER.debug("响应签名数据: [{}]", signData);
-        return signData.getBytes(body.charset());
+        return signData;
     }
 
     @Override
-    @SneakyThrows
     public RequestMessage createRequestMessage(Client client, String payload) {
+        return createRequestMessage(client, payload, MessageVersion.LATEST);
+    }
 
-        byte[] trk = trk();
-        String ciphertextTrk = RSAUtil.publicKeyEncryptWithBase64(client.getClientPublicKey(), trk);
+    @Override
+    @SneakyThrows
+    public RequestMessage createRequestMessage(Client client, String payload, MessageVersion version) {
+        if (MessageVersion.V3_0_0 == version) {
+            return createV3RequestMessage(client, payload);
+        }
+
+        OutboundTrkCache.OutboundTrk outboundTrk = outboundTrk(client);
+        byte[] trk = outboundTrk.getTrk();
 
         RequestMessage requestMessage = new RequestMessage();
         requestMessage.setClientId(client.getId());
-        requestMessage.setTrk(ciphertextTrk);
+        requestMessage.setTrk(outboundTrk.getCiphertext());
         requestMessage.setTimestamp(timestamp());
         requestMessage.setRandomString(randomString());
         requestMessage.setCharset(charset().name());
-        requestMessage.setSignType(signType());
+        requestMessage.setSignType(Optional.ofNullable(client.getSignType()).orElse(signType()));
 
         if (StringUtils.isNotEmpty(payload)) {
             byte[] ciphertextPayload = aes(true, trk, payload.getBytes(requestMessage.getCharset()));
             String ciphertextPayloadStr = Base64.getEncoder().encodeToString(ciphertextPayload);
             requestMessage.setPayload(ciphertextPayloadStr);
         }
-        byte[] signData = getSignData(requestMessage);
-        String sign = sign(requestMessage.getSignType(), client.getPrivateKey(), signData);
+        Arrays.fill(trk, (byte) 0);
+        SignData signData = signData(requestMessage);
+        SignType signType = requestMessage.getSignType();
+        Key signKey = signKey(signType, client.getId(), signKeySource(signType, client));
+        String sign = sign(signType, signKey, signData);
         requestMessage.setSign(sign);
 
         return requestMessage;
@@ -123,80 +192,169 @@ public class MessageServiceImpl implements MessageService {
 
 
     @Override
-    public void init(MessageContext context, RequestMessage body) {
-        Assert.hasLength(body.getClientId(), "ClientId 不能为空");
-        Assert.hasLength(body.getTrk(), "trk 不能为空");
-        Assert.hasLength(body.getTimestamp(), "timestamp 不能为空");
-        Assert.hasLength(body.getRandomString(), "randomString 不能为空");
-        Assert.hasLength(body.getSign(), "sign 不能为空");
-
-        Client client = clientService.getClient(body.getClientId());
-        if (null == client) {
-            LOGGER.debug("使用id作为code获取client: {}", body.getClientId());
-            client = clientService.getClientByCode(body.getClientId());
-        }
-        if (null == client) {
-            LOGGER.error("客户端没有配置秘钥相关信息: {}", body.getClientId());
-            throw new ServiceException("客户端没有配置秘钥相关信息: " + body.getClientId());
-        }
-
-        if (StringUtils.isEmpty(client.getClientPublicKey())) {
-            LOGGER.error("客户端没有配置公钥: {}, {}", client.getId(), client.getCode());
-            throw new ServiceException("客户端公钥未配置: " + client.getCode());
-        }
-
-        context.setClient(client);
-        context.setRequestMessage(body);
+    public Mono<MessageContext> init(MessageContext context, RequestMessage body) {
+        return Mono.defer(() -> {
+            boolean v3 = MessageVersion.V3_0_0 == context.getVersion();
+            boolean session = !v3 && StringUtils.isNotEmpty(body.getSessionId());
+            // 不合法的请求在查询客户端及加解密之前拒绝
+            CharSequence payload = null != body.getPayload() ? body.getPayload() : context.getPayloadText();
+            long time = admissionChecker.check(context.getVersion(), body, payload);
+
+            return reactiveClientService.getSnapshot(body.getClientId())
+                    .switchIfEmpty(Mono.defer(() -> {
+                        LOGGER.debug("使用id作为code获取client: {}", body.getClientId());
+                        return reactiveClientService.getSnapshotByCode(body.getClientId());
+                    }))
+                    .switchIfEmpty(Mono.error(() -> {
+                        LOGGER.error("客户端没有配置秘钥相关信息: {}", body.getClientId());
+                        return new ServiceException("客户端没有配置秘钥相关信息: " + body.getClientId());
+                    }))
+                    .map(snapshot -> {
+                        Client client = snapshot.getClient();
+                        if (v3 && (StringUtils.isEmpty(client.getClientX25519PublicKey()) || StringUtils.isEmpty(client.getX25519PrivateKey()))) {
+                            LOGGER.error("客户端没有配置 X25519 秘钥: {}, {}", client.getId(), client.getCode());
+                            throw new ServiceException("客户端 X25519 秘钥未配置: " + client.getCode());
+                        }
+                        if (session) {
+                            Session s = sessionStore.get(body.getSessionId());
+                            if (null == s || !s.getClientId().equals(client.getId())) {
+                                LOGGER.error("会话不存在或已过期: {}, {}", client.getId(), body.getSessionId());
+                                throw new ServiceException("会话不存在或已过期, 请重新握手");
+                            }
+                            context.setSession(s);
+                        } else if (!v3 && StringUtils.isEmpty(verifyKeySource(body.getSignType(), client))) {
+                            LOGGER.error("客户端没有配置签名秘钥: {}, {}, {}", client.getId(), client.getCode(), body.getSignType());
+                            throw new ServiceException("客户端公钥未配置: " + client.getCode());
+                        }
+
+                        // 签名验证、解密之前检查 randomString, 重放的请求不会消耗加解密资源; 签名验证通过后才记录
+                        replayGuard.checkNonce(client.getId(), time, body.getRandomString());
+                        context.setRequestTime(time);
+
+                        context.setSnapshot(snapshot);
+                        context.setClient(client);
+                        context.setRequestMessage(body);
+                        context.setCharset(body.charset());
+                        return context;
+                    });
+        });
     }
 
     @Override
     public HttpHeaders getRequestHeaders(MessageContext context) {
-        HttpHeaders headers = new HttpHeaders();
-        setCommonHeader(headers);
-        headers.add(Header.CLIENT_ID, context.getClient().getId());
-        if (!CollectionUtils.isEmpty(context.getClient().getRequestHeaders())) {
-            context.getClient().getRequestHeaders().forEach(headers::add);
-        }
-        return headers;
+        return context.getSnapshot().getRequestHeaders();
     }
 
     @Override
     public HttpHeaders getResponseHeaders(MessageContext context) {
-        HttpHeaders headers = new HttpHeaders();
-        setCommonHeader(headers);
-        if (!CollectionUtils.isEmpty(context.getClient().getResponseHeaders())) {
-            context.getClient().getResponseHeaders().forEach(headers::add);
-        }
-        return headers;
+        return context.getSnapshot().getResponseHeaders(context.getVersion());
     }
 
 
     @Override
     public byte[] modifyRequestBody(ServerWebExchange exchange, MessageContext context) {
-        Client client = context.getClient();
+        DecryptedMessage message = decrypt(exchange, context);
+        context.setTrk(message.getTrk());
+        if (message.getPayload().length > 0) {
+            context.setPayload(message.getPayload());
+        }
+        return message.getPayload();
+    }
+
+    @Override
+    public DecryptedMessage decrypt(ServerWebExchange exchange, MessageContext context) {
+        if (MessageVersion.V3_0_0 == context.getVersion()) {
+            return decryptV3(context);
+        }
+        ClientSnapshot snapshot = context.getSnapshot();
         RequestMessage message = context.getRequestMessage();
+        // 使用会话时直接使用会话秘钥, 不需要 RSA 解密
+        byte[] trk = null != context.getSession() ? context.getSession().copyKey() : decryptTrk(snapshot, message);
+
+        String payloadCiphertext = message.getPayload();
+        LOGGER.debug("解密请求参数: [{}]", payloadCiphertext);
+        if (StringUtils.isEmpty(payloadCiphertext)) {
+            LOGGER.info("明文为空,不需要解密");
+            return new DecryptedMessage(trk, new byte[0]);
+        }
+        byte[] payload;
+        try {
+            payload = aes(false, trk, Base64.getDecoder().decode(payloadCiphertext));
+        } catch (RuntimeException e) {
+            Arrays.fill(trk, (byte) 0);
+            throw e;
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("请求参数明文: [{}]", new String(payload, context.getCharset()));
+        }
+        return new DecryptedMessage(trk, payload);
+    }
+
+    @Override
+    public DecryptedBody decryptToBuffers(ServerWebExchange exchange, MessageContext context, DataBufferFactory bufferFactory) {
+        RequestMessage message = context.getRequestMessage();
+        byte[] trk = null != context.getSession() ? context.getSession().copyKey() : decryptTrk(context.getSnapshot(), message);
+        DecryptedBody body = new DecryptedBody(trk, new ArrayList<>());
+
+        CharSequence payload = context.getPayloadText();
+        if (null == payload || payload.length() == 0) {
+            LOGGER.info("明文为空,不需要解密");
+            return body;
+        }
+        LOGGER.debug("分段解密请求参数, 密文长度: {}", payload.length());
+        try {
+            Cipher cipher = CryptoEngine.aesCipher(Cipher.DECRYPT_MODE, trk);
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] chunk = new byte[STREAM_CHUNK_SIZE];
+            byte[] decoded = new byte[STREAM_CHUNK_SIZE / 4 * 3];
+            int length = payload.length();
+            for (int offset = 0; offset < length; offset += STREAM_CHUNK_SIZE) {
+                int n = Math.min(STREAM_CHUNK_SIZE, length - offset);
+                // 最后一段长度不足时使用新数组, Base64 解码需要完整数组
+                byte[] src = n == STREAM_CHUNK_SIZE ? chunk : new byte[n];
+                for (int i = 0; i < n; i++) {
+                    src[i] = (byte) payload.charAt(offset + i);
+                }
+                int size = decoder.decode(src, decoded);
+                write(cipher, ByteBuffer.wrap(decoded, 0, size), false, body.getPayload(), bufferFactory);
+            }
+            write(cipher, ByteBuffer.allocate(0), true, body.getPayload(), bufferFactory);
+            return body;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            body.destroy();
+            LOGGER.error("使用传输秘钥加解密失败: {}", e.getMessage());
+            ServiceException se = new ServiceException("使用传输秘钥加解密失败", e);
+            se.setErrorCode(ErrorCode.PARAMS_ERROR);
+            throw se;
+        }
+    }
+
+    private static void write(Cipher cipher, ByteBuffer input, boolean last, List<DataBuffer> output, DataBufferFactory bufferFactory) throws GeneralSecurityException {
+        int capacity = cipher.getOutputSize(input.remaining());
+        if (capacity == 0) {
+            return;
+        }
+        DataBuffer buffer = bufferFactory.allocateBuffer(capacity);
+        output.add(buffer);
+        ByteBuffer view = buffer.asByteBuffer(0, capacity);
+        int written = last ? cipher.doFinal(input, view) : cipher.update(input, view);
+        buffer.writePosition(written);
+    }
+
+    private byte[] decryptTrk(ClientSnapshot snapshot, RequestMessage message) {
         LOGGER.debug("解密传输秘钥: [{}]", message.getTrk());
-        byte[] trk;
         try {
-            trk = RSAUtil.privateKeyDecryptWithBase64(client.getPrivateKey(), message.getTrk());
-            context.setTrk(trk);
+            PrivateKey privateKey = null != snapshot.getPrivateKey()
+                    ? snapshot.getPrivateKey()
+                    : keyCache.privateKey(snapshot.getId(), snapshot.getClient().getPrivateKey());
+            // 客户端连续请求可能复用同一个 trk, 命中缓存时不需要 RSA 解密
+            return trkCache.get(snapshot.getId(), Base64.getDecoder().decode(message.getTrk()), ciphertext -> CryptoEngine.rsaDecrypt(privateKey, ciphertext));
         } catch (Exception e) {
             LOGGER.error("解密传输秘钥失败: {}", e.getMessage(), e);
             ServiceException se = new ServiceException("使用服务端私钥解密传输秘钥失败", e);
             se.setErrorCode(ErrorCode.PARAMS_ERROR);
             throw se;
         }
-
-        String payloadCiphertext = message.getPayload();
-        LOGGER.debug("解密请求参数: [{}]", payloadCiphertext);
-        if (StringUtils.isEmpty(payloadCiphertext)) {
-            LOGGER.info("明文为空,不需要解密");
-            return new byte[0];
-        }
-        byte[] payload = aes(false, trk, Base64.getDecoder().decode(payloadCiphertext));
-        LOGGER.debug("请求参数明文: [{}]", new String(payload, StandardCharsets.UTF_8));
-        context.setPayload(payload);
-        return payload;
     }
 
     @Override
@@ -213,7 +371,18 @@ public class MessageServiceImpl implements MessageService {
         message.setCharset(requestMessage.getCharset());
         message.setSignType(requestMessage.getSignType());
 
-        if (null != body.getPayload()) {
+        if (MessageVersion.V3_0_0 == context.getVersion()) {
+            // 没有响应数据时同样加密空数据, 客户端通过认证标签验证响应状态
+            String payloadStr = null == body.getPayload() ? "" : Json.toJson(body.getPayload()).toString();
+            LOGGER.debug("加密响应参数: {}", payloadStr);
+            try {
+                byte[] payload = CryptoEngine.aesGcmEncrypt(context.getTrk(), v3Aad(message), payloadStr.getBytes(message.charset()));
+                message.setPayload(Base64.getEncoder().encodeToString(payload));
+            } catch (GeneralSecurityException e) {
+                LOGGER.error("响应参数加密失败: {}", e.getMessage(), e);
+                throw new ServiceException("响应参数加密失败", e);
+            }
+        } else if (null != body.getPayload()) {
             String payloadStr = Json.toJson(body.getPayload()).toString();
             LOGGER.debug("加密响应参数: {}", payloadStr);
             byte[] payload = aes(true, context.getTrk(), payloadStr.getBytes(message.charset()));
@@ -226,44 +395,170 @@ public class MessageServiceImpl implements MessageService {
 
     @Override
     public void sign(ServerWebExchange exchange, MessageContext context, ResponseMessage body) {
+        if (MessageVersion.V3_0_0 == context.getVersion()) {
+            // 响应数据已由 AES-GCM 认证, 不需要单独签名
+            body.setSignType(null);
+            return;
+        }
         LOGGER.debug("响应参数签名计算: {}", body);
         body.setSignType(context.getRequestMessage().getSignType());
 
-        byte[] signData = getSignData(body);
+        SignData signData = signData(body);
 
-        Client client = context.getClient();
-        String privateKeyStr = client.getPrivateKey();
+        if (null != context.getSession()) {
+            String sign = hmacSign(context.getSession().macKey(), signData);
+            LOGGER.debug("会话签名: [{}]", sign);
+            body.setSign(sign);
+            return;
+        }
 
-        String sign = sign(body.getSignType(), privateKeyStr, signData);
+        Key signKey = responseSignKey(context, body.getSignType());
+        String sign = sign(body.getSignType(), signKey, signData);
         LOGGER.debug("签名方式: [{}], 签名: [{}]", body.getSignType(), sign);
         body.setSign(sign);
     }
 
     @Override
-    public String sign(SignType signType, String baseKey, byte[] signData) {
-        String sign = "";
+    public List<DataBuffer> writeResponseBody(ServerWebExchange exchange, MessageContext context, Result.Entity body, DataBufferFactory bufferFactory) {
+        List<ByteBuffer> payload = null;
+        if (null != body.getPayload()) {
+            String payloadStr = Json.toJson(body.getPayload()).toString();
+            LOGGER.debug("加密响应参数: {}", payloadStr);
+            payload = Collections.singletonList(ByteBuffer.wrap(payloadStr.getBytes(context.getCharset())));
+        }
+        return writeEnvelope(context, body.getSuccess(), body.getStatus(), body.getDescribe(), payload, bufferFactory);
+    }
+
+    @Override
+    public List<DataBuffer> writeResponseBody(ServerWebExchange exchange, MessageContext context, RawResultDecoder.RawResult body, DataBufferFactory bufferFactory) {
+        try {
+            if (!StandardCharsets.UTF_8.equals(context.getCharset())) {
+                throw new IllegalStateException("原始响应数据为 UTF-8 编码, 请求字符集不一致");
+            }
+            List<ByteBuffer> payload = body.hasPayload() ? body.payload() : null;
+            return writeEnvelope(context, body.getSuccess(), body.getStatus(), body.getDescribe(), payload, bufferFactory);
+        } finally {
+            body.release();
+        }
+    }
+
+    /**
+     * 分段加密响应参数, 加密结果 Base64 编码后同时写入报文与签名计算
+     *
+     * @param payload 响应参数明文, 为空时报文 payload 为 null
+     */
+    private List<DataBuffer> writeEnvelope(MessageContext context, Boolean success, String status, String describe, List<ByteBuffer> payload, DataBufferFactory bufferFactory) {
+        if (!context.isStreamable()) {
+            throw new IllegalStateException("响应报文不支持流式写入");
+        }
+        RequestMessage requestMessage = context.getRequestMessage();
+        SignType signType = requestMessage.getSignType();
+        String timestamp = timestamp();
+        String randomString = randomString();
+
+        EnvelopeWriter writer = new EnvelopeWriter(bufferFactory)
+                .field("timestamp", timestamp)
+                .field("randomString", randomString)
+                .field("success", success)
+                .field("status", status);
+        try {
+            Signer signer = responseSigner(context, signType);
+            SignData.of(context.getCharset(), timestamp, randomString).update(signer);
+
+            if (null != payload) {
+                writer.startPayload("payload");
+                Cipher cipher = CryptoEngine.aesCipher(Cipher.ENCRYPT_MODE, context.getTrk());
+                byte[] encrypted = new byte[cipher.getOutputSize(STREAM_CHUNK_SIZE)];
+                ByteBuffer output = ByteBuffer.wrap(encrypted);
+                for (ByteBuffer data : payload) {
+                    while (data.hasRemaining()) {
+                        ByteBuffer chunk = data.slice();
+                        chunk.limit(Math.min(STREAM_CHUNK_SIZE, chunk.remaining()));
+                        data.position(data.position() + chunk.limit());
+                        output.clear();
+                        int n = cipher.update(chunk, output);
+                        writer.payload(encrypted, 0, n, signer);
+                    }
+                }
+                writer.payload(encrypted, 0, cipher.doFinal(encrypted, 0), signer);
+                writer.endPayload(signer);
+            } else {
+                writer.field("payload", (String) null);
+            }
+
+            String sign = signer.sign();
+            LOGGER.debug("签名方式: [{}], 签名: [{}]", signType, sign);
+            return writer.field("charset", requestMessage.getCharset())
+                    .field("describe", describe)
+                    .field("signType", signType.name())
+                    .field("sign", sign)
+                    .end();
+        } catch (GeneralSecurityException e) {
+            writer.release();
+            LOGGER.error("响应参数加密失败: {}", e.getMessage(), e);
+            throw new ServiceException("响应参数加密失败", e);
+        } catch (RuntimeException e) {
+            writer.release();
+            throw e;
+        }
+    }
+
+    private Key responseSignKey(MessageContext context, SignType signType) {
+        ClientSnapshot snapshot = context.getSnapshot();
+        return SignType.RSA == signType && null != snapshot.getPrivateKey()
+                ? snapshot.getPrivateKey()
+                : signKey(signType, snapshot.getId(), signKeySource(signType, snapshot.getClient()));
+    }
+
+    private Signer responseSigner(MessageContext context, SignType signType) throws GeneralSecurityException {
+        if (null != context.getSession()) {
+            return new Signer(CryptoEngine.mac(Common.HMAC_SHA256_ALGORITHM, context.getSession().macKey()), null);
+        }
+        Key signKey = responseSignKey(context, signType);
         switch (signType) {
-            case RSA:
-                sign = rsaSign(baseKey, signData);
-                break;
+            case HMAC_SHA256:
+                return new Signer(CryptoEngine.mac(Common.HMAC_SHA256_ALGORITHM, signKey), null);
+            case ED25519:
+                return new Signer(null, CryptoEngine.signer(Common.ED25519_SIGN_ALGORITHM, (PrivateKey) signKey));
+            case ECDSA_P256:
+                return new Signer(null, CryptoEngine.signer(Common.ECDSA_P256_SIGN_ALGORITHM, (PrivateKey) signKey));
+            default:
+                return new Signer(null, CryptoEngine.signer(Common.RSA_SIGN_ALGORITHM, (PrivateKey) signKey));
         }
-        return sign;
+    }
+
+    @Override
+    public String sign(SignType signType, String baseKey, byte[] signData) {
+        return sign(signType, signKey(signType, null, baseKey), SignData.of(signData));
     }
 
     @Override
     public void verify(ServerWebExchange exchange, MessageContext context) throws ServiceException {
+        if (MessageVersion.V3_0_0 == context.getVersion()) {
+            // 3.0.0 版本解密时同时完成认证
+            decrypt(exchange, context).destroy();
+            return;
+        }
         RequestMessage body = context.getRequestMessage();
         LOGGER.debug("请求参数签名验证: {}", body);
-        byte[] signData = getSignData(body);
-
-        boolean isOk = false;
-        switch (body.getSignType()) {
-            case RSA:
-                String pk = context.getClient().getClientPublicKey();
-                isOk = rsaVerify(pk, signData, body.getSign());
-                break;
+        // 流式解析时 payload 不在请求报文中
+        SignData signData = null == context.getPayloadText()
+                ? signData(body)
+                : SignData.of(context.getCharset(), body.getTimestamp(), body.getRandomString(), SignData.trim(context.getPayloadText()));
+
+        boolean isOk;
+        if (null != context.getSession()) {
+            isOk = hmacVerify(context.getSession().macKey(), signData, body.getSign());
+        } else {
+            ClientSnapshot snapshot = context.getSnapshot();
+            SignType signType = body.getSignType();
+            Key verifyKey = SignType.RSA == signType && null != snapshot.getClientPublicKey()
+                    ? snapshot.getClientPublicKey()
+                    : verifyKey(signType, snapshot.getId(), verifyKeySource(signType, snapshot.getClient()));
+            isOk = null != verifyKey && verify(signType, verifyKey, signData, body.getSign());
         }
         if (isOk) {
+            recordNonce(context);
             return;
         }
         LOGGER.error("签名校验失败: {}", body.getSign());
@@ -272,32 +567,237 @@ public class MessageServiceImpl implements MessageService {
 
     @Override
     public boolean verify(SignType signType, String baseKey, byte[] signData, String sign) {
+        Key verifyKey = verifyKey(signType, null, baseKey);
+        return null != verifyKey && verify(signType, verifyKey, SignData.of(signData), sign);
+    }
+
+    /**
+     * 客户端开启 trk 复用时在复用窗口内使用同一个 trk, 否则每次生成新的 trk
+     */
+    private OutboundTrkCache.OutboundTrk outboundTrk(Client client) throws GeneralSecurityException {
+        OutboundTrkCache.Generator generator = () -> {
+            byte[] trk = trk();
+            PublicKey publicKey = keyCache.publicKey(client.getId(), client.getClientPublicKey());
+            return new OutboundTrkCache.OutboundTrk(trk, Base64.getEncoder().encodeToString(CryptoEngine.rsaEncrypt(publicKey, trk)));
+        };
+        int seconds = Optional.ofNullable(client.getTrkReuseSeconds()).orElse(0);
+        if (seconds <= 0) {
+            return generator.generate();
+        }
+        int count = Optional.ofNullable(client.getTrkReuseCount()).orElse(0);
+        return outboundTrkCache.get(client.getId(), client.getClientPublicKey(), seconds, count, generator);
+    }
+
+    private RequestMessage createV3RequestMessage(Client client, String payload) throws GeneralSecurityException {
+        PublicKey clientKey = keyCache.x25519PublicKey(client.getId(), client.getClientX25519PublicKey());
+        PrivateKey gatewayKey = keyCache.x25519PrivateKey(client.getId(), client.getX25519PrivateKey());
+        KeyPair ephemeral = CryptoEngine.x25519KeyPair();
+        byte[] epk = ephemeral.getPublic().getEncoded();
+
+        RequestMessage requestMessage = new RequestMessage();
+        requestMessage.setClientId(client.getId());
+        requestMessage.setEpk(Base64.getEncoder().encodeToString(epk));
+        requestMessage.setTimestamp(timestamp());
+        requestMessage.setRandomString(randomString());
+        requestMessage.setCharset(charset().name());
+        requestMessage.setSignType(null);
+
+        byte[] key = v3Key(client.getId(), epk, CryptoEngine.x25519(ephemeral.getPrivate(), clientKey), gatewayKey, clientKey);
+        try {
+            byte[] data = StringUtils.defaultString(payload).getBytes(requestMessage.charset());
+            byte[] ciphertext = CryptoEngine.aesGcmEncrypt(key, v3Aad(requestMessage), data);
+            requestMessage.setPayload(Base64.getEncoder().encodeToString(ciphertext));
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+        return requestMessage;
+    }
+
+    /**
+     * 3.0.0 版本解密
+     * 使用客户端临时公钥、客户端固定公钥分别与服务端私钥协商, 派生 AES-GCM 秘钥后解密, 认证标签校验通过即完成签名验证
+     */
+    private DecryptedMessage decryptV3(MessageContext context) {
+        Client client = context.getClient();
+        RequestMessage message = context.getRequestMessage();
+        byte[] key;
+        try {
+            byte[] epk = Base64.getDecoder().decode(message.getEpk());
+            PrivateKey gatewayKey = keyCache.x25519PrivateKey(client.getId(), client.getX25519PrivateKey());
+            PublicKey clientKey = keyCache.x25519PublicKey(client.getId(), client.getClientX25519PublicKey());
+            byte[] ephemeralSecret = CryptoEngine.x25519(gatewayKey, CryptoEngine.x25519PublicKey(epk));
+            key = v3Key(message.getClientId(), epk, ephemeralSecret, gatewayKey, clientKey);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            LOGGER.error("秘钥协商失败: {}", e.getMessage(), e);
+            ServiceException se = new ServiceException("秘钥协商失败", e);
+            se.setErrorCode(ErrorCode.PARAMS_ERROR);
+            throw se;
+        }
+
+        byte[] payload;
+        try {
+            payload = CryptoEngine.aesGcmDecrypt(key, v3Aad(message), Base64.getDecoder().decode(message.getPayload()));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            Arrays.fill(key, (byte) 0);
+            LOGGER.error("报文认证失败: {}", e.getMessage());
+            throw new SignatureException("签名校验失败");
+        }
+        try {
+            recordNonce(context);
+        } catch (RuntimeException e) {
+            Arrays.fill(key, (byte) 0);
+            Arrays.fill(payload, (byte) 0);
+            throw e;
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("请求参数明文: [{}]", new String(payload, context.getCharset()));
+        }
+        return new DecryptedMessage(key, payload);
+    }
+
+    /**
+     * 签名验证通过后记录 randomString, 同一个报文只记录一次
+     */
+    private void recordNonce(MessageContext context) {
+        if (context.isNonceRecorded()) {
+            return;
+        }
+        replayGuard.recordNonce(context.getClient().getId(), context.getRequestTime(), context.getRequestMessage().getRandomString());
+        context.setNonceRecorded(true);
+    }
+
+    /**
+     * 3.0.0 版本秘钥派生
+     * HKDF-SHA256(salt = 临时公钥, ikm = 临时秘钥协商结果 + 固定秘钥协商结果, info = 前缀 + clientId)
+     */
+    private byte[] v3Key(String clientId, byte[] epk, byte[] ephemeralSecret, PrivateKey gatewayKey, PublicKey clientKey) throws GeneralSecurityException {
+        byte[] staticSecret = CryptoEngine.x25519(gatewayKey, clientKey);
+        byte[] ikm = new byte[ephemeralSecret.length + staticSecret.length];
+        System.arraycopy(ephemeralSecret, 0, ikm, 0, ephemeralSecret.length);
+        System.arraycopy(staticSecret, 0, ikm, ephemeralSecret.length, staticSecret.length);
+        try {
+            byte[] info = (Common.V3_KEY_INFO + clientId).getBytes(StandardCharsets.UTF_8);
+            return CryptoEngine.hkdfSha256(epk, ikm, info, Common.AES_GCM_KEY_LENGTH);
+        } finally {
+            Arrays.fill(ephemeralSecret, (byte) 0);
+            Arrays.fill(staticSecret, (byte) 0);
+            Arrays.fill(ikm, (byte) 0);
+        }
+    }
+
+    /**
+     * 3.0.0 版本请求附加认证数据 = clientId + 发送请求时间 + 随机字符串
+     */
+    private byte[] v3Aad(RequestMessage message) {
+        return (message.getClientId() + message.getTimestamp() + message.getRandomString()).getBytes(message.charset());
+    }
+
+    /**
+     * 3.0.0 版本响应附加认证数据 = 响应时间 + 随机字符串 + 响应状态码
+     */
+    private byte[] v3Aad(ResponseMessage message) {
+        return (message.getTimestamp() + message.getRandomString() + StringUtils.trimToEmpty(message.getStatus())).getBytes(message.charset());
+    }
+
+    private String sign(SignType signType, Key signKey, SignData signData) {
+        String sign = "";
+        switch (signType) {
+            case RSA:
+                sign = signatureSign(Common.RSA_SIGN_ALGORITHM, (PrivateKey) signKey, signData);
+                break;
+            case HMAC_SHA256:
+                sign = hmacSign(signKey, signData);
+                break;
+            case ED25519:
+                sign = signatureSign(Common.ED25519_SIGN_ALGORITHM, (PrivateKey) signKey, signData);
+                break;
+            case ECDSA_P256:
+                sign = signatureSign(Common.ECDSA_P256_SIGN_ALGORITHM, (PrivateKey) signKey, signData);
+                break;
+        }
+        return sign;
+    }
+
+    private boolean verify(SignType signType, Key verifyKey, SignData signData, String sign) {
         boolean isOk = false;
         switch (signType) {
             case RSA:
-                isOk = rsaVerify(baseKey, signData, sign);
+                isOk = signatureVerify(Common.RSA_SIGN_ALGORITHM, (PublicKey) verifyKey, signData, sign);
+                break;
+            case HMAC_SHA256:
+                isOk = hmacVerify(verifyKey, signData, sign);
+                break;
+            case ED25519:
+                isOk = signatureVerify(Common.ED25519_SIGN_ALGORITHM, (PublicKey) verifyKey, signData, sign);
+                break;
+            case ECDSA_P256:
+                isOk = signatureVerify(Common.ECDSA_P256_SIGN_ALGORITHM, (PublicKey) verifyKey, signData, sign);
                 break;
         }
         return isOk;
     }
 
+    /**
+     * 签名使用的秘钥字符串
+     */
+    private static String signKeySource(SignType signType, Client client) {
+        switch (signType) {
+            case HMAC_SHA256:
+                return client.getHmacSecret();
+            case ED25519:
+                return client.getEd25519PrivateKey();
+            case ECDSA_P256:
+                return client.getEcPrivateKey();
+            default:
+                return client.getPrivateKey();
+        }
+    }
 
-    private String rsaSign(String key, byte[] signData) {
-        PrivateKey privateKey;
+    /**
+     * 验签使用的秘钥字符串
+     */
+    private static String verifyKeySource(SignType signType, Client client) {
+        switch (signType) {
+            case HMAC_SHA256:
+                return client.getHmacSecret();
+            case ED25519:
+                return client.getClientEd25519PublicKey();
+            case ECDSA_P256:
+                return client.getClientEcPublicKey();
+            default:
+                return client.getClientPublicKey();
+        }
+    }
+
+    /**
+     * 解析签名秘钥, 失败时抛出异常
+     */
+    private Key signKey(SignType signType, String clientId, String key) {
         try {
-            privateKey = RSA.parsePrivateKeyWithBase64(key);
+            return keyCache.signKey(clientId, signType, key);
         } catch (Exception e) {
             LOGGER.error("解析私钥失败: {}", e.getMessage(), e);
             throw new ServiceException("解析私钥失败", e);
         }
+    }
+
+    /**
+     * 解析验签秘钥, 失败时返回空
+     */
+    private Key verifyKey(SignType signType, String clientId, String key) {
+        try {
+            return keyCache.verifyKey(clientId, signType, key);
+        } catch (Exception e) {
+            LOGGER.error("公钥格式不正确,无法解析:" + e.getMessage(), e);
+            return null;
+        }
+    }
 
+    private String hmacSign(Key key, SignData signData) {
         try {
-            byte[] signArr = RSAUtil.sign(
-                    privateKey,
-                    Common.RSA_SIGN_ALGORITHM,
-                    signData
-            );
-            return Base64.getEncoder().encodeToString(signArr);
+            Mac mac = CryptoEngine.mac(Common.HMAC_SHA256_ALGORITHM, key);
+            signData.update(mac::update);
+            return Base64.getEncoder().encodeToString(mac.doFinal());
         } catch (Exception e) {
             LOGGER.error("响应参数计算签名失败: {}", e.getMessage(), e);
             throw new ServiceException("响应参数计算签名失败", e);
@@ -305,28 +805,46 @@ public class MessageServiceImpl implements MessageService {
     }
 
     /**
-     * RSA 签名验证
+     * HMAC 签名验证, 使用常量时间比较
      *
      * @return 签名是否正确
      */
-    private boolean rsaVerify(String publicKeyStr, byte[] signData, String sign) {
-        PublicKey publicKey;
+    private boolean hmacVerify(Key key, SignData signData, String sign) {
+        LOGGER.debug("待验证的签名: [{}]", sign);
         try {
-            publicKey = RSA.parsePublicKeyWithBase64(publicKeyStr);
+            byte[] signBytes = Base64.getDecoder().decode(sign);
+            Mac mac = CryptoEngine.mac(Common.HMAC_SHA256_ALGORITHM, key);
+            signData.update(mac::update);
+            return MessageDigest.isEqual(mac.doFinal(), signBytes);
         } catch (Exception e) {
-            LOGGER.error("公钥格式不正确,无法解析:" + e.getMessage(), e);
-            return false;
+            LOGGER.error("签名执行失败: {}", e.getMessage(), e);
+        }
+        return false;
+    }
+
+    private String signatureSign(String algorithm, PrivateKey privateKey, SignData signData) {
+        try {
+            Signature signature = CryptoEngine.signer(algorithm, privateKey);
+            signData.update(signature::update);
+            return Base64.getEncoder().encodeToString(signature.sign());
+        } catch (Exception e) {
+            LOGGER.error("响应参数计算签名失败: {}", e.getMessage(), e);
+            throw new ServiceException("响应参数计算签名失败", e);
         }
+    }
 
+    /**
+     * RSA、Ed25519、ECDSA 签名验证
+     *
+     * @return 签名是否正确
+     */
+    private boolean signatureVerify(String algorithm, PublicKey publicKey, SignData signData, String sign) {
         LOGGER.debug("待验证的签名: [{}]", sign);
         try {
             byte[] signBytes = Base64.getDecoder().decode(sign);
-            return RSAUtil.signVerify(
-                    publicKey,
-                    Common.RSA_SIGN_ALGORITHM,
-                    signData,
-                    signBytes
-            );
+            Signature signature = CryptoEngine.verifier(algorithm, publicKey);
+            signData.update(signature::update);
+            return signature.verify(signBytes);
         } catch (Exception e) {
             LOGGER.error("签名执行失败: {}", e.getMessage(), e);
         }
@@ -334,13 +852,11 @@ public class MessageServiceImpl implements MessageService {
     }
 
     private byte[] aes(boolean encrypt, byte[] key, byte[] data) {
-        AesUtils.setTransformation(tech.aomi.cloud.gateway.constant.Common.AES_TRANSFORMATION);
-        AesUtils.setKeyLength(tech.aomi.cloud.gateway.constant.Common.AES_KEY_LENGTH);
         try {
             if (encrypt) {
-                return AesUtils.encrypt(key, data);
+                return CryptoEngine.aesEncrypt(key, data);
             } else {
-                return AesUtils.decrypt(key, data);
+                return CryptoEngine.aesDecrypt(key, data);
             }
         } catch (Exception e) {
             LOGGER.error("使用传输秘钥加解密失败: {}", e.getMessage());
@@ -350,7 +866,31 @@ public class MessageServiceImpl implements MessageService {
         }
     }
 
-    private void setCommonHeader(HttpHeaders headers) {
-        headers.add(Header.MESSAGE_VERSION, MessageVersion.LATEST.getVersion());
+    /**
+     * 分段计算响应签名, HMAC 使用 Mac, 其他签名方式使用 Signature
+     */
+    private static final class Signer implements SignData.Updater {
+
+        private final Mac mac;
+
+        private final Signature signature;
+
+        Signer(Mac mac, Signature signature) {
+            this.mac = mac;
+            this.signature = signature;
+        }
+
+        @Override
+        public void update(byte[] data, int offset, int length) throws GeneralSecurityException {
+            if (null != mac) {
+                mac.update(data, offset, length);
+            } else {
+                signature.update(data, offset, length);
+            }
+        }
+
+        String sign() throws GeneralSecurityException {
+            return Base64.getEncoder().encodeToString(null != mac ? mac.doFinal() : signature.sign());
+        }
     }
 }
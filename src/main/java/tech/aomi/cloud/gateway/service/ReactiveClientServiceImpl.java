@@ -0,0 +1,41 @@
+package tech.aomi.cloud.gateway.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.api.ReactiveClientService;
+import tech.aomi.cloud.gateway.cache.ClientCache;
+import tech.aomi.cloud.gateway.cache.ClientSnapshot;
+import tech.aomi.cloud.gateway.entity.Client;
+
+/**
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Service
+public class ReactiveClientServiceImpl implements ReactiveClientService {
+
+    @Autowired
+    private ClientCache clientCache;
+
+    @Override
+    public Mono<Client> getClient(String clientId) {
+        return clientCache.getById(clientId).map(ClientSnapshot::getClient);
+    }
+
+    @Override
+    public Mono<Client> getClientByCode(String code) {
+        return clientCache.getByCode(code).map(ClientSnapshot::getClient);
+    }
+
+    @Override
+    public Mono<ClientSnapshot> getSnapshot(String clientId) {
+        return clientCache.getById(clientId);
+    }
+
+    @Override
+    public Mono<ClientSnapshot> getSnapshotByCode(String code) {
+        return clientCache.getByCode(code);
+    }
+}
@@ -0,0 +1,73 @@
+package tech.aomi.cloud.gateway.session;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import tech.aomi.cloud.gateway.constant.Common;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Arrays;
+
+/**
+ * 握手建立的会话
+ * 会话期间报文使用会话秘钥加密, 使用会话签名秘钥计算 HMAC 签名, 不再需要 RSA 运算
+ * 秘钥创建后不再修改, 也不对外暴露内部数组; 会话失效时只删除引用, 已经取得会话的请求仍使用正确的秘钥完成处理
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Getter
+public class Session {
+
+    /**
+     * 会话ID
+     */
+    private final String id;
+
+    /**
+     * 客户端ID
+     */
+    private final String clientId;
+
+    /**
+     * 会话有效期, 秒
+     */
+    private final long expiresIn;
+
+    /**
+     * AES 会话秘钥, 即握手请求的传输秘钥
+     */
+    @Getter(AccessLevel.NONE)
+    private final byte[] key;
+
+    /**
+     * HMAC 签名秘钥, 由会话秘钥派生
+     */
+    @Getter(AccessLevel.NONE)
+    private final SecretKey macKey;
+
+    Session(String id, String clientId, long expiresIn, byte[] key, byte[] macKey) {
+        this.id = id;
+        this.clientId = clientId;
+        this.expiresIn = expiresIn;
+        this.key = key;
+        // SecretKeySpec 保存副本, 清除派生结果不影响会话
+        this.macKey = new SecretKeySpec(macKey, Common.HMAC_SHA256_ALGORITHM);
+        Arrays.fill(macKey, (byte) 0);
+    }
+
+    /**
+     * 会话秘钥副本, 使用方可以在请求结束时清除
+     *
+     * @return 会话秘钥
+     */
+    public byte[] copyKey() {
+        return key.clone();
+    }
+
+    /**
+     * @return HMAC 签名秘钥
+     */
+    public SecretKey macKey() {
+        return macKey;
+    }
+}
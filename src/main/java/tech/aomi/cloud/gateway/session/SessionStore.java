@@ -0,0 +1,128 @@
+package tech.aomi.cloud.gateway.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.constant.CacheKey;
+import tech.aomi.cloud.gateway.constant.Common;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 会话存储
+ * 只保存在本实例内存中, 数量有上限, 超过有效期自动删除
+ * 同时维护客户端到会话ID的索引, 删除客户端的会话时不需要遍历所有会话
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Slf4j
+@Component
+public class SessionStore {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Cache<String, Session> sessions;
+
+    /**
+     * clientId -> 会话ID
+     */
+    private final Map<String, Set<String>> clientSessions = new ConcurrentHashMap<>();
+
+    private final long expiresIn;
+
+    @Autowired
+    public SessionStore(GatewayProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param ticker   过期使用的时钟
+     * @param executor 删除监听器使用的线程池
+     */
+    public SessionStore(GatewayProperties properties, MeterRegistry meterRegistry, Ticker ticker, Executor executor) {
+        GatewayProperties.Session config = properties.getSession();
+        this.expiresIn = config.getTtl().getSeconds();
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl())
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .<String, Session>removalListener((id, session, cause) -> {
+                    if (null != session) {
+                        unindex(session.getClientId(), id);
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sessions, CacheKey.SESSION);
+    }
+
+    /**
+     * 创建会话
+     *
+     * @param clientId 客户端ID
+     * @param key      会话秘钥, 由会话持有, 调用方不能再清除
+     * @return 会话
+     * @throws GeneralSecurityException 派生签名秘钥失败
+     */
+    public Session create(String clientId, byte[] key) throws GeneralSecurityException {
+        byte[] idBytes = new byte[16];
+        RANDOM.nextBytes(idBytes);
+        String id = Base64.getUrlEncoder().withoutPadding().encodeToString(idBytes);
+        byte[] macKey = CryptoEngine.hkdfSha256(idBytes, key, Common.SESSION_MAC_KEY_INFO.getBytes(StandardCharsets.UTF_8), 32);
+
+        Session session = new Session(id, clientId, expiresIn, key, macKey);
+        clientSessions.compute(clientId, (k, ids) -> {
+            Set<String> result = null == ids ? ConcurrentHashMap.newKeySet() : ids;
+            result.add(id);
+            return result;
+        });
+        sessions.put(id, session);
+        LOGGER.debug("创建会话: {}, {}", clientId, id);
+        return session;
+    }
+
+    /**
+     * 获取会话
+     *
+     * @param id 会话ID
+     * @return 会话, 不存在或已过期时为空
+     */
+    public Session get(String id) {
+        return sessions.getIfPresent(id);
+    }
+
+    /**
+     * 删除客户端的所有会话, 客户端秘钥变更后需要重新握手
+     *
+     * @param clientId 客户端ID
+     */
+    public void evict(String clientId) {
+        Set<String> ids = clientSessions.remove(clientId);
+        if (null != ids) {
+            sessions.invalidateAll(ids);
+        }
+    }
+
+    private void unindex(String clientId, String id) {
+        clientSessions.computeIfPresent(clientId, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
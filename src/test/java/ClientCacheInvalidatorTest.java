@@ -0,0 +1,57 @@
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.cache.ClientCache;
+import tech.aomi.cloud.gateway.cache.ClientCacheInvalidator;
+import tech.aomi.cloud.gateway.cache.ClientChangeEvent;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
+import tech.aomi.cloud.gateway.crypto.TrkCache;
+import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.repository.ReactiveClientRepository;
+import tech.aomi.cloud.gateway.session.SessionStore;
+
+/**
+ * @author Sean createAt 2026/10/18
+ */
+public class ClientCacheInvalidatorTest {
+
+    @Test
+    public void test() {
+        ReactiveClientRepository repository = Mockito.mock(ReactiveClientRepository.class);
+        Mockito.when(repository.findById("1"))
+                .thenReturn(Mono.just(client("1", "c1", "pk1")))
+                .thenReturn(Mono.just(client("1", "c1", "pk2")));
+
+        GatewayProperties properties = new GatewayProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ClientCache clientCache = new ClientCache(repository, new KeyCache(properties), new SessionStore(properties, meterRegistry), new TrkCache(properties, meterRegistry), properties, meterRegistry);
+
+        // 使用内存事件流代替 Mongo change stream
+        Sinks.Many<ClientChangeEvent> feed = Sinks.many().multicast().directBestEffort();
+        ClientCacheInvalidator invalidator = new ClientCacheInvalidator(clientCache, feed::asFlux);
+        invalidator.start();
+
+        Assertions.assertEquals("pk1", clientCache.getById("1").block().getClient().getClientPublicKey());
+        Assertions.assertEquals("pk1", clientCache.getByCode("c1").block().getClient().getClientPublicKey());
+        Mockito.verify(repository, Mockito.times(1)).findById("1");
+
+        feed.tryEmitNext(new ClientChangeEvent("1", "c1"));
+
+        Assertions.assertEquals("pk2", clientCache.getById("1").block().getClient().getClientPublicKey());
+        Mockito.verify(repository, Mockito.times(2)).findById("1");
+
+        invalidator.stop();
+    }
+
+    private Client client(String id, String code, String publicKey) {
+        Client client = new Client();
+        client.setId(id);
+        client.setCode(code);
+        client.setClientPublicKey(publicKey);
+        return client;
+    }
+}
@@ -0,0 +1,74 @@
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.cache.ClientCache;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
+import tech.aomi.cloud.gateway.crypto.TrkCache;
+import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.repository.ReactiveClientRepository;
+import tech.aomi.cloud.gateway.session.SessionStore;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端缓存刷新、覆盖写入后 code 索引仍然有效
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class ClientCacheTest {
+
+    @Test
+    public void put() {
+        ReactiveClientRepository repository = Mockito.mock(ReactiveClientRepository.class);
+        ClientCache clientCache = clientCache(repository, new GatewayProperties(), Ticker.systemTicker());
+
+        clientCache.put(client("1", "c1", "pk1"));
+        clientCache.put(client("1", "c1", "pk2"));
+
+        Assertions.assertEquals("pk2", clientCache.getByCode("c1").block().getClient().getClientPublicKey());
+        Mockito.verify(repository, Mockito.never()).findByCode(ArgumentMatchers.anyString());
+    }
+
+    @Test
+    public void refresh() {
+        ReactiveClientRepository repository = Mockito.mock(ReactiveClientRepository.class);
+        Mockito.when(repository.findById("1"))
+                .thenReturn(Mono.just(client("1", "c1", "pk1")))
+                .thenReturn(Mono.just(client("1", "c1", "pk2")));
+        GatewayProperties properties = new GatewayProperties();
+        properties.getClientCache().setRefreshAfterWrite(Duration.ofMillis(10));
+        AtomicLong nanos = new AtomicLong();
+        ClientCache clientCache = clientCache(repository, properties, nanos::get);
+
+        Assertions.assertEquals("pk1", clientCache.getById("1").block().getClient().getClientPublicKey());
+        nanos.addAndGet(Duration.ofMillis(20).toNanos());
+        // 触发刷新, 返回刷新前的值
+        Assertions.assertEquals("pk1", clientCache.getById("1").block().getClient().getClientPublicKey());
+        Mockito.verify(repository, Mockito.times(2)).findById("1");
+
+        Assertions.assertEquals("pk2", clientCache.getByCode("c1").block().getClient().getClientPublicKey());
+        Mockito.verify(repository, Mockito.never()).findByCode(ArgumentMatchers.anyString());
+    }
+
+    /**
+     * 刷新及删除监听器在调用线程中执行
+     */
+    private ClientCache clientCache(ReactiveClientRepository repository, GatewayProperties properties, Ticker ticker) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new ClientCache(repository, new KeyCache(properties), new SessionStore(properties, meterRegistry), new TrkCache(properties, meterRegistry), properties, meterRegistry, ticker, Runnable::run);
+    }
+
+    private Client client(String id, String code, String publicKey) {
+        Client client = new Client();
+        client.setId(id);
+        client.setCode(code);
+        client.setClientPublicKey(publicKey);
+        return client;
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.aomi.cloud.gateway.constant.Common;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+import tech.aomi.common.utils.crypto.AesUtils;
+
+import javax.crypto.AEADBadTagException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.Arrays;
+
+/**
+ * @author Sean createAt 2026/10/18
+ */
+public class CryptoEngineTest {
+
+    @Test
+    public void aesUtilsCompatible() throws Exception {
+        CryptoEngine.init();
+        for (int length : new int[]{0, 1, 15, 16, 17, 1000}) {
+            byte[] key = AesUtils.generateKey(Common.AES_KEY_LENGTH);
+            byte[] data = new String(new char[length]).replace('\0', '中').getBytes(StandardCharsets.UTF_8);
+
+            byte[] expected = AesUtils.encrypt(key, data);
+            byte[] actual = CryptoEngine.aesEncrypt(key, data);
+            Assertions.assertArrayEquals(expected, actual);
+
+            Assertions.assertArrayEquals(data, CryptoEngine.aesDecrypt(key, expected));
+            Assertions.assertArrayEquals(data, AesUtils.decrypt(key, actual));
+        }
+    }
+
+    /**
+     * RFC 5869 附录 A 中 SHA-256 的测试向量
+     */
+    @Test
+    public void hkdfSha256() throws Exception {
+        byte[] ikm = new byte[22];
+        Arrays.fill(ikm, (byte) 0x0b);
+        Assertions.assertEquals(
+                "3cb25f25faacd57a90434f64d0362f2a2d2d0a90cf1a5a4c5db02d56ecc4c5bf34007208d5b887185865",
+                hex(CryptoEngine.hkdfSha256(range(0x00, 0x0c), ikm, range(0xf0, 0xf9), 42)));
+        Assertions.assertEquals(
+                "b11e398dc80327a1c8e7f78c596a49344f012eda2d4efad8a050cc4c19afa97c"
+                        + "59045a99cac7827271cb41c65e590e09da3275600c2f09b8367793a9aca3db71"
+                        + "cc30c58179ec3e87c14c01d5c1f3434f1d87",
+                hex(CryptoEngine.hkdfSha256(range(0x60, 0xaf), range(0x00, 0x4f), range(0xb0, 0xff), 82)));
+        Assertions.assertEquals(
+                "8da4e775a563c18f715f802a063c5a31b8a11f5c5ee1879ec3454e5f3c738d2d9d201395faa4b61a96c8",
+                hex(CryptoEngine.hkdfSha256(new byte[0], ikm, new byte[0], 42)));
+    }
+
+    @Test
+    public void x25519AesGcm() throws Exception {
+        KeyPair client = CryptoEngine.x25519KeyPair();
+        KeyPair gateway = CryptoEngine.x25519KeyPair();
+        byte[] clientSecret = CryptoEngine.x25519(client.getPrivate(), CryptoEngine.x25519PublicKey(gateway.getPublic().getEncoded()));
+        byte[] gatewaySecret = CryptoEngine.x25519(gateway.getPrivate(), CryptoEngine.x25519PublicKey(client.getPublic().getEncoded()));
+        Assertions.assertArrayEquals(clientSecret, gatewaySecret);
+
+        byte[] salt = client.getPublic().getEncoded();
+        byte[] info = (Common.V3_KEY_INFO + "1").getBytes(StandardCharsets.UTF_8);
+        byte[] key = CryptoEngine.hkdfSha256(salt, clientSecret, info, Common.AES_GCM_KEY_LENGTH);
+        Assertions.assertArrayEquals(key, CryptoEngine.hkdfSha256(salt, gatewaySecret, info, Common.AES_GCM_KEY_LENGTH));
+
+        byte[] aad = "120261018120000abc".getBytes(StandardCharsets.UTF_8);
+        byte[] data = "{\"amount\":\"1.00\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] ciphertext = CryptoEngine.aesGcmEncrypt(key, aad, data);
+        Assertions.assertEquals(Common.AES_GCM_NONCE_LENGTH + data.length + Common.AES_GCM_TAG_LENGTH / 8, ciphertext.length);
+        Assertions.assertArrayEquals(data, CryptoEngine.aesGcmDecrypt(key, aad, ciphertext));
+        // 每次使用随机向量
+        Assertions.assertFalse(Arrays.equals(ciphertext, CryptoEngine.aesGcmEncrypt(key, aad, data)));
+
+        byte[] tamperedAad = aad.clone();
+        tamperedAad[0] ^= 1;
+        Assertions.assertThrows(AEADBadTagException.class, () -> CryptoEngine.aesGcmDecrypt(key, tamperedAad, ciphertext));
+        // 向量、密文、认证标签任一字节被修改
+        for (int i : new int[]{0, Common.AES_GCM_NONCE_LENGTH, Common.AES_GCM_NONCE_LENGTH + data.length, ciphertext.length - 1}) {
+            byte[] tampered = ciphertext.clone();
+            tampered[i] ^= 1;
+            Assertions.assertThrows(AEADBadTagException.class, () -> CryptoEngine.aesGcmDecrypt(key, aad, tampered));
+        }
+        Assertions.assertThrows(AEADBadTagException.class, () -> CryptoEngine.aesGcmDecrypt(key, aad, Arrays.copyOf(ciphertext, ciphertext.length - 1)));
+        Assertions.assertThrows(AEADBadTagException.class, () -> CryptoEngine.aesGcmDecrypt(key, aad, new byte[Common.AES_GCM_NONCE_LENGTH]));
+    }
+
+    private static byte[] range(int from, int to) {
+        byte[] data = new byte[to - from + 1];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (from + i);
+        }
+        return data;
+    }
+
+    private static String hex(byte[] data) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : data) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+}
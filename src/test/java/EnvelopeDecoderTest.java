@@ -0,0 +1,122 @@
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+import tech.aomi.cloud.gateway.controller.SignType;
+import tech.aomi.cloud.gateway.filter.message.EnvelopeDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 请求报文流式解析
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class EnvelopeDecoderTest {
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(new UnpooledByteBufAllocator(false));
+
+    @Test
+    public void decode() {
+        byte[] data = new byte[100000];
+        new Random(1).nextBytes(data);
+        String payload = Base64.getEncoder().encodeToString(data);
+        String json = "{\"clientId\":\"1\",\"extra\":{\"payload\":\"x\"},\"timestamp\":\"20261018120000\",\"randomString\":\"abc\","
+                + "\"signType\":\"RSA\",\"sign\":\"s\",\"payload\":\"" + payload + "\",\"trk\":null}";
+
+        // 任意位置分段, 包括 payload 内部
+        for (int size : new int[]{1, 7, 4096, json.length()}) {
+            List<DataBuffer> buffers = buffers(json.getBytes(StandardCharsets.UTF_8), size);
+            EnvelopeDecoder.Envelope envelope = EnvelopeDecoder.decode(Flux.fromIterable(buffers), Long.MAX_VALUE).block();
+            Assertions.assertEquals("1", envelope.getMessage().getClientId());
+            Assertions.assertEquals("20261018120000", envelope.getMessage().getTimestamp());
+            Assertions.assertEquals("abc", envelope.getMessage().getRandomString());
+            Assertions.assertEquals(SignType.RSA, envelope.getMessage().getSignType());
+            Assertions.assertNull(envelope.getMessage().getTrk());
+            Assertions.assertNull(envelope.getMessage().getPayload());
+            Assertions.assertEquals(payload.length(), envelope.getPayload().length());
+            Assertions.assertEquals(payload, envelope.getPayload().toString());
+            Assertions.assertEquals(payload.substring(10, 20), envelope.getPayload().subSequence(10, 20).toString());
+            Assertions.assertTrue(envelope.isStreamable());
+            assertReleased(buffers);
+        }
+    }
+
+    @Test
+    public void escaped() {
+        // JSON 转义后的字符按解析结果保存
+        EnvelopeDecoder.Envelope envelope = decode("{\"clientId\":\"1\",\"payload\":\"ab\\/c\\u0064==\"}");
+        Assertions.assertEquals("ab/cd==", envelope.getPayload().toString());
+
+        envelope = decode("{\"clientId\":\"1\",\"payload\":\"中文\"}");
+        Assertions.assertEquals("中文", envelope.getPayload().toString());
+        Assertions.assertEquals("中文", envelope.toRequestMessage().getPayload());
+
+        envelope = decode("{\"clientId\":\"1\",\"payload\":null}");
+        Assertions.assertNull(envelope.getPayload());
+        Assertions.assertFalse(envelope.isStreamable());
+    }
+
+    @Test
+    public void invalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decode("[1]"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decode("{\"clientId\":\"1\""));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decode("{}{}"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decode(""));
+    }
+
+    /**
+     * 超出长度限制时, 已读取及未读取的 DataBuffer 全部释放
+     */
+    @Test
+    public void tooLong() {
+        byte[] json = "{\"clientId\":\"1\",\"payload\":\"YWJj\"}".getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = buffers(json, 4);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EnvelopeDecoder.decode(Flux.fromIterable(buffers), 10).block());
+        assertReleased(buffers);
+    }
+
+    /**
+     * 读取过程中取消时, 未读取的 DataBuffer 同样释放
+     */
+    @Test
+    public void cancel() {
+        byte[] json = "{\"clientId\":\"1\",\"payload\":\"YWJj\"}".getBytes(StandardCharsets.UTF_8);
+        List<DataBuffer> buffers = buffers(json, 4);
+        // take 读取两个后取消上游, 报文不完整
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EnvelopeDecoder.decode(Flux.fromIterable(buffers).take(2), Long.MAX_VALUE).block());
+        assertReleased(buffers);
+    }
+
+    private EnvelopeDecoder.Envelope decode(String json) {
+        List<DataBuffer> buffers = buffers(json.getBytes(StandardCharsets.UTF_8), 3);
+        try {
+            return EnvelopeDecoder.decode(Flux.fromIterable(buffers), Long.MAX_VALUE).block();
+        } finally {
+            assertReleased(buffers);
+        }
+    }
+
+    private List<DataBuffer> buffers(byte[] data, int size) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < data.length; offset += size) {
+            int n = Math.min(size, data.length - offset);
+            buffers.add(bufferFactory.allocateBuffer(n).write(data, offset, n));
+        }
+        return buffers;
+    }
+
+    private static void assertReleased(List<DataBuffer> buffers) {
+        for (DataBuffer buffer : buffers) {
+            ByteBuf byteBuf = NettyDataBufferFactory.toByteBuf(buffer);
+            Assertions.assertEquals(0, byteBuf.refCnt());
+        }
+    }
+}
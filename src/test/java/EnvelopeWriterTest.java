@@ -0,0 +1,97 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.support.BodyInserterContext;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.cache.ClientSnapshot;
+import tech.aomi.cloud.gateway.controller.RequestMessage;
+import tech.aomi.cloud.gateway.controller.ResponseMessage;
+import tech.aomi.cloud.gateway.controller.SignType;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
+import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.filter.message.MessageContext;
+import tech.aomi.cloud.gateway.service.MessageServiceImpl;
+import tech.aomi.common.web.controller.Result;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 流式写入的响应报文与 ResponseMessage 序列化结果逐字节一致
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class EnvelopeWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MessageServiceImpl messageService = new MessageServiceImpl();
+
+    private final MessageContext context = new MessageContext();
+
+    public EnvelopeWriterTest() {
+        ReflectionTestUtils.setField(messageService, "keyCache", new KeyCache(new GatewayProperties()));
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        Client client = new Client();
+        client.setId("1");
+        client.setCode("c1");
+        client.setSignType(SignType.HMAC_SHA256);
+        client.setHmacSecret(Base64.getEncoder().encodeToString(secret));
+
+        RequestMessage requestMessage = new RequestMessage();
+        requestMessage.setClientId("1");
+        requestMessage.setCharset("UTF-8");
+        requestMessage.setSignType(SignType.HMAC_SHA256);
+
+        byte[] trk = new byte[16];
+        new SecureRandom().nextBytes(trk);
+        context.setClient(client);
+        context.setSnapshot(new ClientSnapshot(client, null, null));
+        context.setRequestMessage(requestMessage);
+        context.setCharset(StandardCharsets.UTF_8);
+        context.setTrk(trk);
+    }
+
+    @Test
+    public void golden() throws Exception {
+        assertSame("{\"success\":true,\"status\":\"0000\",\"describe\":\"成功\",\"payload\":{\"amount\":\"1.00\",\"name\":\"中文\"}}");
+        // 空 describe、空 payload
+        assertSame("{\"success\":true,\"status\":\"0000\"}");
+        assertSame("{\"status\":\"0000\",\"describe\":null,\"payload\":null}");
+        // 需要转义的字符
+        assertSame("{\"success\":false,\"status\":\"E\\\"01\",\"describe\":\"说明 \\\"x\\\" \\\\ / \\n\\t\\u0001 😀\"}");
+        // 超过一个 DataBuffer 的 payload
+        assertSame("{\"success\":true,\"status\":\"0000\",\"payload\":\"" + "x".repeat(50000) + "\"}");
+    }
+
+    /**
+     * 流式写入的报文解析为 ResponseMessage 后, 按普通响应的方式序列化, 结果必须一致
+     */
+    private void assertSame(String backend) throws Exception {
+        Result.Entity entity = objectMapper.readValue(backend, Result.Entity.class);
+        List<DataBuffer> buffers = messageService.writeResponseBody(null, context, entity, new DefaultDataBufferFactory());
+        String streaming = DataBufferUtils.join(Flux.fromIterable(buffers))
+                .map(buffer -> {
+                    String value = buffer.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(buffer);
+                    return value;
+                })
+                .block();
+
+        ResponseMessage message = objectMapper.readValue(streaming, ResponseMessage.class);
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        BodyInserters.fromValue(message).insert(response, new BodyInserterContext()).block();
+        Assertions.assertEquals(response.getBodyAsString().block(), streaming);
+    }
+}
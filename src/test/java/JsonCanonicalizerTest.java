@@ -0,0 +1,50 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.aomi.cloud.gateway.filter.v1.SignDataUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * v1 签名数据规范化兼容性测试
+ * 规范化结果需要与旧的先绑定 Map 再序列化的结果完全一致
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class JsonCanonicalizerTest {
+
+    private static final String[] CORPUS = {
+            "{}",
+            "{\"b\":1,\"a\":2}",
+            "  {\n  \"z\" : \"last\",\n  \"a\" : \"first\"\n}  ",
+            "{\"a\":null,\"b\":\"x\"}",
+            "{\"a\":1,\"a\":2}",
+            "{\"a\":\"x\",\"a\":null}",
+            "{\"a\":null,\"a\":\"x\"}",
+            "{\"amount\":1.0,\"rate\":0.000001,\"big\":1e20,\"small\":-1.5E-7,\"zero\":-0.0}",
+            "{\"int\":-0,\"long\":9223372036854775807,\"bigint\":123456789012345678901234567890}",
+            "{\"decimal\":12345678901234567890.12345678901234567890}",
+            "{\"t\":true,\"f\":false,\"n\":null}",
+            "{\"list\":[3,1,2,null,{\"d\":1,\"c\":[{\"f\":2,\"e\":1}]}]}",
+            "{\"nested\":{\"y\":{\"b\":1,\"a\":{\"d\":null,\"c\":2.50}},\"x\":[]}}",
+            "{\"text\":\"中文\\u4e2d\\u6587\",\"emoji\":\"\\ud83d\\ude00\",\"ctrl\":\"\\u0001\\t\\n\\r\\b\\f\"}",
+            "{\"quote\":\"\\\"\",\"slash\":\"\\/\",\"backslash\":\"\\\\\"}",
+            "{\"B\":1,\"a\":2,\"_\":3,\"1\":4,\"\":5,\"ä\":6}",
+            "{\"arr\":[[],[[1.10]],{}],\"obj\":{}}",
+            "{\"merchantNo\":\"M0001\",\"orderNo\":\"202610180001\",\"amount\":100.00,\"currency\":\"CNY\",\"items\":[{\"sku\":\"A\",\"qty\":1,\"price\":99.99},{\"sku\":\"B\",\"qty\":2,\"price\":0.005}],\"extra\":null}",
+    };
+
+    @Test
+    public void test() throws Exception {
+        for (String json : CORPUS) {
+            byte[] data = json.getBytes(StandardCharsets.UTF_8);
+            String expected = new String(SignDataUtils.strToSignText(data), StandardCharsets.UTF_8);
+            String actual = new String(SignDataUtils.canonicalize(data), StandardCharsets.UTF_8);
+            Assertions.assertEquals(expected, actual, json);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SignDataUtils.updateSignText(data, out::write);
+            Assertions.assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8), json);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.api.ReactiveClientService;
+import tech.aomi.cloud.gateway.cache.ClientSnapshot;
+import tech.aomi.cloud.gateway.constant.Common;
+import tech.aomi.cloud.gateway.controller.RequestMessage;
+import tech.aomi.cloud.gateway.controller.SignType;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
+import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.filter.message.MessageContext;
+import tech.aomi.cloud.gateway.guard.AdmissionChecker;
+import tech.aomi.cloud.gateway.guard.ReplayGuard;
+import tech.aomi.cloud.gateway.service.MessageServiceImpl;
+import tech.aomi.common.exception.ServiceException;
+import tech.aomi.common.exception.SignatureException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+
+/**
+ * 各签名方式的签名、验签
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class MessageServiceSignTest {
+
+    /**
+     * secp256k1 曲线公钥(基点), 与 P-256 同为 256 位曲线
+     */
+    private static final String SECP256K1_PUBLIC_KEY = "MFYwEAYHKoZIzj0CAQYFK4EEAAoDQgAEeb5mfvncu6xVoGKVzocLBwKb/NstzijZWfKBWxb4F5hIOtp3JqPEZV2k+/wOEQio/Re0SKaFVBmcR9CP+xDUuA==";
+
+    private final MessageServiceImpl messageService = new MessageServiceImpl();
+
+    private final ReactiveClientService reactiveClientService = Mockito.mock(ReactiveClientService.class);
+
+    public MessageServiceSignTest() {
+        ReflectionTestUtils.setField(messageService, "keyCache", new KeyCache(new GatewayProperties()));
+        ReflectionTestUtils.setField(messageService, "reactiveClientService", reactiveClientService);
+        ReflectionTestUtils.setField(messageService, "admissionChecker", Mockito.mock(AdmissionChecker.class));
+        ReflectionTestUtils.setField(messageService, "replayGuard", Mockito.mock(ReplayGuard.class));
+    }
+
+    @Test
+    public void hmac() throws Exception {
+        Client client = client(SignType.HMAC_SHA256);
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        client.setHmacSecret(Base64.getEncoder().encodeToString(secret));
+
+        byte[] data = "20261018120000abc{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        String sign = messageService.sign(SignType.HMAC_SHA256, client.getHmacSecret(), data);
+        Assertions.assertTrue(messageService.verify(SignType.HMAC_SHA256, client.getHmacSecret(), data, sign));
+
+        byte[] tampered = data.clone();
+        tampered[tampered.length - 2] = '2';
+        Assertions.assertFalse(messageService.verify(SignType.HMAC_SHA256, client.getHmacSecret(), tampered, sign));
+        byte[] otherSecret = new byte[32];
+        new SecureRandom().nextBytes(otherSecret);
+        Assertions.assertFalse(messageService.verify(SignType.HMAC_SHA256, Base64.getEncoder().encodeToString(otherSecret), data, sign));
+
+        roundTrip(client);
+    }
+
+    @Test
+    public void hmacSecretMissing() throws Exception {
+        Client client = client(SignType.HMAC_SHA256);
+        byte[] data = "data".getBytes(StandardCharsets.UTF_8);
+
+        Assertions.assertThrows(ServiceException.class, () -> messageService.sign(SignType.HMAC_SHA256, null, data));
+        Assertions.assertFalse(messageService.verify(SignType.HMAC_SHA256, null, data, "c2lnbg=="));
+        Assertions.assertThrows(ServiceException.class, () -> messageService.createRequestMessage(client, "{}"));
+
+        // 请求使用 HMAC 签名但客户端没有配置共享秘钥, 在验签前拒绝
+        Mockito.when(reactiveClientService.getSnapshot(client.getId())).thenReturn(Mono.just(new ClientSnapshot(client, null, null)));
+        RequestMessage body = new RequestMessage();
+        body.setClientId(client.getId());
+        body.setTimestamp("20261018120000");
+        body.setRandomString("abc");
+        body.setSignType(SignType.HMAC_SHA256);
+        body.setSign("c2lnbg==");
+        Mono<MessageContext> init = messageService.init(new MessageContext(), body);
+        Assertions.assertThrows(ServiceException.class, init::block);
+    }
+
+    /**
+     * 签名验证通过后才记录 randomString
+     */
+    @Test
+    public void recordNonce() throws Exception {
+        ReplayGuard replayGuard = new ReplayGuard(new GatewayProperties(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(messageService, "replayGuard", replayGuard);
+        Client client = client(SignType.HMAC_SHA256);
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        client.setHmacSecret(Base64.getEncoder().encodeToString(secret));
+        RequestMessage message = messageService.createRequestMessage(client, "{\"amount\":\"1.00\"}");
+        long now = System.currentTimeMillis();
+
+        String sign = message.getSign();
+        message.setSign(Base64.getEncoder().encodeToString(new byte[32]));
+        Assertions.assertThrows(SignatureException.class, () -> messageService.verify(null, context(client, message, now)));
+        replayGuard.checkNonce(client.getId(), now, message.getRandomString());
+
+        message.setSign(sign);
+        MessageContext context = context(client, message, now);
+        messageService.verify(null, context);
+        // 同一个报文再次验证不重复记录
+        messageService.verify(null, context);
+        Assertions.assertThrows(ServiceException.class, () -> replayGuard.checkNonce(client.getId(), now, message.getRandomString()));
+        Assertions.assertThrows(ServiceException.class, () -> messageService.verify(null, context(client, message, now)));
+    }
+
+    @Test
+    public void ed25519() throws Exception {
+        KeyPair keyPair = KeyPairGenerator.getInstance(Common.ED25519_SIGN_ALGORITHM).generateKeyPair();
+        Client client = client(SignType.ED25519);
+        client.setEd25519PrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        // 测试中客户端与服务端使用同一对秘钥, 网关生成的请求可以直接按收到请求的方式验签
+        client.setClientEd25519PublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+
+        signVerify(SignType.ED25519, client.getEd25519PrivateKey(), client.getClientEd25519PublicKey());
+        roundTrip(client);
+    }
+
+    @Test
+    public void ecdsaP256() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        Client client = client(SignType.ECDSA_P256);
+        client.setEcPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        client.setClientEcPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+
+        signVerify(SignType.ECDSA_P256, client.getEcPrivateKey(), client.getClientEcPublicKey());
+        roundTrip(client);
+    }
+
+    @Test
+    public void ecdsaOtherCurve() throws Exception {
+        KeyCache keyCache = new KeyCache(new GatewayProperties());
+        Assertions.assertThrows(InvalidKeyException.class, () -> keyCache.verifyKey(null, SignType.ECDSA_P256, SECP256K1_PUBLIC_KEY));
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp384r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        Assertions.assertThrows(InvalidKeyException.class, () -> keyCache.verifyKey(null, SignType.ECDSA_P256, Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded())));
+        Assertions.assertThrows(InvalidKeyException.class, () -> keyCache.signKey(null, SignType.ECDSA_P256, Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded())));
+        Assertions.assertFalse(messageService.verify(SignType.ECDSA_P256, SECP256K1_PUBLIC_KEY, "data".getBytes(StandardCharsets.UTF_8), "c2lnbg=="));
+    }
+
+    private void signVerify(SignType signType, String signKey, String verifyKey) {
+        byte[] data = "20261018120000abc{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        String sign = messageService.sign(signType, signKey, data);
+        Assertions.assertTrue(messageService.verify(signType, verifyKey, data, sign));
+
+        byte[] tampered = data.clone();
+        tampered[tampered.length - 2] = '2';
+        Assertions.assertFalse(messageService.verify(signType, verifyKey, tampered, sign));
+
+        byte[] signBytes = Base64.getDecoder().decode(sign);
+        signBytes[signBytes.length / 2] ^= 1;
+        Assertions.assertFalse(messageService.verify(signType, verifyKey, data, Base64.getEncoder().encodeToString(signBytes)));
+    }
+
+    /**
+     * 生成请求报文后按服务端收到请求的方式验签, 修改任一签名字段后验签失败
+     */
+    private void roundTrip(Client client) {
+        RequestMessage message = messageService.createRequestMessage(client, "{\"amount\":\"1.00\",\"name\":\"中文\"}");
+        Assertions.assertEquals(client.getSignType(), message.getSignType());
+        messageService.verify(null, context(client, message));
+
+        String timestamp = message.getTimestamp();
+        message.setTimestamp("20001018120000");
+        Assertions.assertThrows(SignatureException.class, () -> messageService.verify(null, context(client, message)));
+        message.setTimestamp(timestamp);
+
+        String payload = message.getPayload();
+        message.setPayload(payload.substring(4) + payload.substring(0, 4));
+        Assertions.assertThrows(SignatureException.class, () -> messageService.verify(null, context(client, message)));
+        message.setPayload(payload);
+
+        message.setRandomString(message.getRandomString() + "0");
+        Assertions.assertThrows(SignatureException.class, () -> messageService.verify(null, context(client, message)));
+    }
+
+    private MessageContext context(Client client, RequestMessage message, long requestTime) {
+        MessageContext context = context(client, message);
+        context.setRequestTime(requestTime);
+        return context;
+    }
+
+    private MessageContext context(Client client, RequestMessage message) {
+        MessageContext context = new MessageContext();
+        context.setSnapshot(new ClientSnapshot(client, null, null));
+        context.setClient(client);
+        context.setRequestMessage(message);
+        context.setCharset(message.charset());
+        return context;
+    }
+
+    /**
+     * 创建客户端, trk 使用 RSA 公钥加密
+     */
+    private Client client(SignType signType) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        Client client = new Client();
+        client.setId("1");
+        client.setCode("c1");
+        client.setSignType(signType);
+        client.setClientPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        return client;
+    }
+}
@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.constant.MessageVersion;
+import tech.aomi.cloud.gateway.controller.RequestMessage;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
+import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.filter.message.DecryptedMessage;
+import tech.aomi.cloud.gateway.filter.message.MessageContext;
+import tech.aomi.cloud.gateway.guard.ReplayGuard;
+import tech.aomi.cloud.gateway.service.MessageServiceImpl;
+import tech.aomi.common.exception.SignatureException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.function.Consumer;
+
+/**
+ * 3.0.0 版本报文加解密
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class MessageServiceV3Test {
+
+    private static final String PAYLOAD = "{\"amount\":\"1.00\",\"name\":\"中文\"}";
+
+    private final MessageServiceImpl messageService = new MessageServiceImpl();
+
+    private final Client client = new Client();
+
+    public MessageServiceV3Test() {
+        ReflectionTestUtils.setField(messageService, "keyCache", new KeyCache(new GatewayProperties()));
+        ReflectionTestUtils.setField(messageService, "replayGuard", Mockito.mock(ReplayGuard.class));
+
+        // 测试中客户端与服务端使用同一对秘钥, 网关生成的请求可以直接按收到请求的方式解密
+        KeyPair keyPair = CryptoEngine.x25519KeyPair();
+        client.setId("1");
+        client.setCode("c1");
+        client.setX25519PrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        client.setClientX25519PublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+    }
+
+    @Test
+    public void roundTrip() {
+        RequestMessage message = messageService.createRequestMessage(client, PAYLOAD, MessageVersion.V3_0_0);
+        Assertions.assertNull(message.getSign());
+        Assertions.assertNotNull(message.getEpk());
+
+        DecryptedMessage decrypted = messageService.decrypt(null, context(message));
+        Assertions.assertEquals(PAYLOAD, new String(decrypted.getPayload(), StandardCharsets.UTF_8));
+        messageService.verify(null, context(message));
+    }
+
+    @Test
+    public void tampered() {
+        // 附加认证数据
+        rejected(message -> message.setTimestamp("20001018120000"));
+        rejected(message -> message.setRandomString(message.getRandomString() + "0"));
+        rejected(message -> message.setClientId("2"));
+        // 向量、密文、认证标签
+        rejected(message -> message.setPayload(flip(message.getPayload(), 0)));
+        rejected(message -> message.setPayload(flip(message.getPayload(), 20)));
+        rejected(message -> message.setPayload(flip(message.getPayload(), -1)));
+        // 临时公钥
+        rejected(message -> message.setEpk(Base64.getEncoder().encodeToString(CryptoEngine.x25519KeyPair().getPublic().getEncoded())));
+    }
+
+    private void rejected(Consumer<RequestMessage> tamper) {
+        RequestMessage message = messageService.createRequestMessage(client, PAYLOAD, MessageVersion.V3_0_0);
+        tamper.accept(message);
+        Assertions.assertThrows(SignatureException.class, () -> messageService.verify(null, context(message)));
+    }
+
+    /**
+     * 修改 Base64 数据中的一个字节, index 为负数时从末尾计算
+     */
+    private static String flip(String base64, int index) {
+        byte[] data = Base64.getDecoder().decode(base64);
+        data[index < 0 ? data.length + index : index] ^= 1;
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+    private MessageContext context(RequestMessage message) {
+        MessageContext context = new MessageContext();
+        context.setVersion(MessageVersion.V3_0_0);
+        context.setClient(client);
+        context.setRequestMessage(message);
+        context.setCharset(message.charset());
+        return context;
+    }
+}
@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.crypto.OutboundTrkCache;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * trk 复用窗口并发获取
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class OutboundTrkCacheTest {
+
+    private static final int THREADS = 16;
+
+    private static final int TIMES = 200;
+
+    @Test
+    public void concurrentTime() throws Exception {
+        AtomicInteger generated = new AtomicInteger();
+        List<OutboundTrkCache.OutboundTrk> trks = concurrentGet(0, generated);
+
+        // 复用时间内只生成一次
+        Assertions.assertEquals(1, generated.get());
+        Assertions.assertEquals(1, trks.stream().map(OutboundTrkCache.OutboundTrk::getCiphertext).distinct().count());
+    }
+
+    @Test
+    public void concurrentCount() throws Exception {
+        AtomicInteger generated = new AtomicInteger();
+        List<OutboundTrkCache.OutboundTrk> trks = concurrentGet(5, generated);
+
+        // 每个 trk 恰好使用 5 次, 复用窗口结束时只有一个调用方重新生成
+        Assertions.assertEquals(THREADS * TIMES / 5, generated.get());
+        trks.stream()
+                .collect(Collectors.groupingBy(OutboundTrkCache.OutboundTrk::getCiphertext, Collectors.counting()))
+                .values()
+                .forEach(count -> Assertions.assertEquals(5L, count));
+    }
+
+    @Test
+    public void publicKeyChanged() throws Exception {
+        OutboundTrkCache cache = new OutboundTrkCache(new GatewayProperties());
+        AtomicInteger generated = new AtomicInteger();
+        OutboundTrkCache.OutboundTrk t1 = cache.get("1", "pk1", 60, 0, () -> generate(generated));
+        OutboundTrkCache.OutboundTrk t2 = cache.get("1", "pk1", 60, 0, () -> generate(generated));
+        Assertions.assertEquals(t1.getCiphertext(), t2.getCiphertext());
+
+        // 调用方清理返回的副本不影响缓存中的 trk
+        Arrays.fill(t1.getTrk(), (byte) 0);
+        assertPaired(cache.get("1", "pk1", 60, 0, () -> generate(generated)));
+
+        OutboundTrkCache.OutboundTrk t3 = cache.get("1", "pk2", 60, 0, () -> generate(generated));
+        Assertions.assertNotEquals(t1.getCiphertext(), t3.getCiphertext());
+        Assertions.assertEquals(2, generated.get());
+    }
+
+    private List<OutboundTrkCache.OutboundTrk> concurrentGet(int count, AtomicInteger generated) throws Exception {
+        OutboundTrkCache cache = new OutboundTrkCache(new GatewayProperties());
+        List<OutboundTrkCache.OutboundTrk> trks = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < TIMES; j++) {
+                        OutboundTrkCache.OutboundTrk trk = cache.get("1", "pk", 60, count, () -> generate(generated));
+                        trks.add(trk);
+                        // 调用方使用后清理副本
+                        assertPaired(trk);
+                        Arrays.fill(trk.getTrk(), (byte) 0);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(THREADS * TIMES, trks.size());
+        return trks;
+    }
+
+    /**
+     * 测试中密文为 trk 的 Base64 编码, 明文与密文必须对应且不能被清零
+     */
+    private static void assertPaired(OutboundTrkCache.OutboundTrk trk) {
+        Assertions.assertEquals(trk.getCiphertext(), Base64.getEncoder().encodeToString(trk.getTrk()));
+        Assertions.assertFalse(Arrays.equals(new byte[trk.getTrk().length], trk.getTrk()));
+    }
+
+    private static OutboundTrkCache.OutboundTrk generate(AtomicInteger generated) {
+        generated.incrementAndGet();
+        byte[] trk = new byte[16];
+        new SecureRandom().nextBytes(trk);
+        return new OutboundTrkCache.OutboundTrk(trk, Base64.getEncoder().encodeToString(trk));
+    }
+}
@@ -0,0 +1,68 @@
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.guard.ReplayGuard;
+import tech.aomi.common.exception.ServiceException;
+
+/**
+ * randomString 检查、记录及容量限制
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class ReplayGuardTest {
+
+    @Test
+    public void checkThenRecord() {
+        ReplayGuard replayGuard = new ReplayGuard(new GatewayProperties(), new SimpleMeterRegistry());
+        long now = System.currentTimeMillis();
+
+        // 只检查不记录, 签名验证失败的请求不占用 randomString
+        replayGuard.checkNonce("1", now, "abc");
+        replayGuard.checkNonce("1", now, "abc");
+
+        replayGuard.recordNonce("1", now, "abc");
+        Assertions.assertThrows(ServiceException.class, () -> replayGuard.checkNonce("1", now, "abc"));
+        Assertions.assertThrows(ServiceException.class, () -> replayGuard.recordNonce("1", now, "abc"));
+
+        // 其他客户端使用相同的 randomString 不受影响
+        replayGuard.checkNonce("2", now, "abc");
+        replayGuard.recordNonce("2", now, "abc");
+    }
+
+    @Test
+    public void clientFull() {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getReplay().setBuckets(1);
+        properties.getReplay().setClientMaximumSize(4);
+        ReplayGuard replayGuard = new ReplayGuard(properties, new SimpleMeterRegistry());
+        long now = System.currentTimeMillis();
+
+        replayGuard.recordNonce("1", now, "a");
+        replayGuard.recordNonce("1", now, "b");
+        Assertions.assertThrows(ServiceException.class, () -> replayGuard.recordNonce("1", now, "c"));
+
+        // 只拒绝记录已满的客户端
+        replayGuard.recordNonce("2", now, "a");
+        replayGuard.recordNonce("2", now, "b");
+    }
+
+    @Test
+    public void full() {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getReplay().setBuckets(1);
+        properties.getReplay().setMaximumSize(4);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReplayGuard replayGuard = new ReplayGuard(properties, meterRegistry);
+        long now = System.currentTimeMillis();
+
+        replayGuard.recordNonce("1", now, "a");
+        replayGuard.recordNonce("2", now, "a");
+
+        // 总容量已满时不再记录, 请求继续处理
+        replayGuard.recordNonce("3", now, "a");
+        replayGuard.recordNonce("3", now, "a");
+        Assertions.assertEquals(2, meterRegistry.get("gateway.replay.unrecorded").counter().count());
+        Assertions.assertThrows(ServiceException.class, () -> replayGuard.checkNonce("1", now, "a"));
+    }
+}
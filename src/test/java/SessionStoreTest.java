@@ -0,0 +1,144 @@
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.api.ReactiveClientService;
+import tech.aomi.cloud.gateway.cache.ClientSnapshot;
+import tech.aomi.cloud.gateway.constant.Common;
+import tech.aomi.cloud.gateway.controller.RequestMessage;
+import tech.aomi.cloud.gateway.controller.SignType;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.filter.message.MessageContext;
+import tech.aomi.cloud.gateway.guard.AdmissionChecker;
+import tech.aomi.cloud.gateway.guard.ReplayGuard;
+import tech.aomi.cloud.gateway.service.MessageServiceImpl;
+import tech.aomi.cloud.gateway.session.Session;
+import tech.aomi.cloud.gateway.session.SessionStore;
+import tech.aomi.common.exception.ServiceException;
+import tech.aomi.common.exception.SignatureException;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话创建、查找、失效
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class SessionStoreTest {
+
+    @Test
+    public void evict() throws Exception {
+        SessionStore sessionStore = sessionStore(new GatewayProperties(), Ticker.systemTicker());
+        byte[] key = key();
+        Session s1 = sessionStore.create("1", key.clone());
+        Session s2 = sessionStore.create("1", key());
+        Session s3 = sessionStore.create("2", key());
+        byte[] macKey = s1.macKey().getEncoded();
+
+        Assertions.assertSame(s1, sessionStore.get(s1.getId()));
+        Assertions.assertNotEquals(s1.getId(), s2.getId());
+
+        sessionStore.evict("1");
+        Assertions.assertNull(sessionStore.get(s1.getId()));
+        Assertions.assertNull(sessionStore.get(s2.getId()));
+        Assertions.assertSame(s3, sessionStore.get(s3.getId()));
+
+        // 删除监听器已执行, 已经取得会话的请求继续使用原来的秘钥
+        Assertions.assertArrayEquals(key, s1.copyKey());
+        Assertions.assertArrayEquals(macKey, s1.macKey().getEncoded());
+
+        // 删除后重新创建的会话可以再次被删除
+        Session s4 = sessionStore.create("1", key());
+        sessionStore.evict("1");
+        Assertions.assertNull(sessionStore.get(s4.getId()));
+    }
+
+    @Test
+    public void expire() throws Exception {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getSession().setTtl(Duration.ofMillis(50));
+        AtomicLong nanos = new AtomicLong();
+        SessionStore sessionStore = sessionStore(properties, nanos::get);
+        byte[] key = key();
+        Session session = sessionStore.create("1", key.clone());
+        Assertions.assertNotNull(sessionStore.get(session.getId()));
+
+        nanos.addAndGet(Duration.ofMillis(100).toNanos());
+        Assertions.assertNull(sessionStore.get(session.getId()));
+        Assertions.assertArrayEquals(key, session.copyKey());
+    }
+
+    /**
+     * 握手后使用会话秘钥加密、HMAC 签名的报文, 不需要 trk 即可验签、解密
+     */
+    @Test
+    public void sessionRequest() throws Exception {
+        SessionStore sessionStore = sessionStore(new GatewayProperties(), Ticker.systemTicker());
+        ReactiveClientService reactiveClientService = Mockito.mock(ReactiveClientService.class);
+        MessageServiceImpl messageService = new MessageServiceImpl();
+        ReflectionTestUtils.setField(messageService, "sessionStore", sessionStore);
+        ReflectionTestUtils.setField(messageService, "reactiveClientService", reactiveClientService);
+        ReflectionTestUtils.setField(messageService, "admissionChecker", Mockito.mock(AdmissionChecker.class));
+        ReflectionTestUtils.setField(messageService, "replayGuard", Mockito.mock(ReplayGuard.class));
+
+        Client client = new Client();
+        client.setId("1");
+        client.setCode("c1");
+        Mockito.when(reactiveClientService.getSnapshot("1")).thenReturn(Mono.just(new ClientSnapshot(client, null, null)));
+
+        byte[] key = key();
+        Session session = sessionStore.create("1", key.clone());
+        String payload = "{\"amount\":\"1.00\"}";
+
+        RequestMessage body = new RequestMessage();
+        body.setClientId("1");
+        body.setSessionId(session.getId());
+        body.setTimestamp("20261018120000");
+        body.setRandomString("abc");
+        body.setSignType(SignType.HMAC_SHA256);
+        body.setPayload(Base64.getEncoder().encodeToString(CryptoEngine.aesEncrypt(key, payload.getBytes(StandardCharsets.UTF_8))));
+        Mac mac = Mac.getInstance(Common.HMAC_SHA256_ALGORITHM);
+        mac.init(session.macKey());
+        byte[] signData = (body.getTimestamp() + body.getRandomString() + body.getPayload()).getBytes(StandardCharsets.UTF_8);
+        body.setSign(Base64.getEncoder().encodeToString(mac.doFinal(signData)));
+
+        MessageContext context = messageService.init(new MessageContext(), body).block();
+        Assertions.assertSame(session, context.getSession());
+        messageService.verify(null, context);
+        Assertions.assertEquals(payload, new String(messageService.decrypt(null, context).getPayload(), StandardCharsets.UTF_8));
+
+        body.setRandomString("abd");
+        Assertions.assertThrows(SignatureException.class, () -> messageService.verify(null, context));
+
+        // 会话属于其他客户端或已失效时拒绝
+        Session other = sessionStore.create("2", key());
+        body.setSessionId(other.getId());
+        Assertions.assertThrows(ServiceException.class, () -> messageService.init(new MessageContext(), body).block());
+        sessionStore.evict("1");
+        body.setSessionId(session.getId());
+        Assertions.assertThrows(ServiceException.class, () -> messageService.init(new MessageContext(), body).block());
+    }
+
+    /**
+     * 删除监听器在调用线程中执行
+     */
+    private SessionStore sessionStore(GatewayProperties properties, Ticker ticker) {
+        return new SessionStore(properties, new SimpleMeterRegistry(), ticker, Runnable::run);
+    }
+
+    private static byte[] key() {
+        byte[] key = new byte[16];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+}
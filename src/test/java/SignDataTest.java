@@ -0,0 +1,88 @@
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.aomi.cloud.gateway.crypto.SignData;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 分段编码的签名数据与拼接字符串后编码的结果一致
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class SignDataTest {
+
+    private static final Charset GBK = Charset.forName("GBK");
+
+    @Test
+    public void surrogatePair() throws Exception {
+        // 代理对跨越 8192 字符的分段边界
+        String payload = "a".repeat(8192 - 20 - 3 - 1) + "😀" + "中文".repeat(5000) + "😀";
+        assertSame(StandardCharsets.UTF_8, "20261018120000000000", "abc", payload);
+        assertSame(GBK, "20261018120000000000", "abc", payload);
+
+        // 代理对跨越两个片段
+        assertSame(StandardCharsets.UTF_8, "2026\uD83D", "\uDE00abc", "x");
+    }
+
+    @Test
+    public void unpairedSurrogate() throws Exception {
+        assertSame(StandardCharsets.UTF_8, "2026", "abc", "x\uD83Dy");
+        assertSame(StandardCharsets.UTF_8, "2026", "abc", "x\uDE00y");
+        assertSame(StandardCharsets.UTF_8, "2026", "abc", "xy\uD83D");
+        assertSame(StandardCharsets.UTF_8, "2026", "abc", "a".repeat(8192 - 8) + "\uD83D");
+        assertSame(GBK, "2026", "abc", "中\uD83D文");
+    }
+
+    @Test
+    public void gbk() throws Exception {
+        assertSame(GBK, "2026", "随机", "{\"name\":\"中文\",\"amount\":\"1.00\"}");
+        // GBK 无法编码的字符使用替换字符
+        assertSame(GBK, "2026", "abc", "😀€ü");
+        assertSame(GBK, "2026", "abc", "中文".repeat(10000));
+    }
+
+    @Test
+    public void emptyPayload() throws Exception {
+        assertSame(StandardCharsets.UTF_8, "2026", "abc", null);
+        assertSame(StandardCharsets.UTF_8, "2026", "abc", "");
+        assertSame(StandardCharsets.UTF_8, "2026", "abc", " \t\r\n ");
+        assertSame(StandardCharsets.UTF_8, "2026", "abc", "  {\"a\":1} \n");
+        // 空字段与字符串拼接一致
+        assertSame(StandardCharsets.UTF_8, null, "abc", "x");
+        assertSame(StandardCharsets.UTF_8, "2026", null, null);
+    }
+
+    @Test
+    public void charBuffer() throws Exception {
+        String payload = "  " + "YWJj".repeat(5000) + " ";
+        CharBuffer view = CharBuffer.wrap(("#" + payload + "#").toCharArray(), 1, payload.length()).slice();
+        assertBytes((payload("2026", "abc", payload)).getBytes(StandardCharsets.UTF_8), SignData.of(StandardCharsets.UTF_8, "2026", "abc", SignData.trim(view)));
+    }
+
+    private static void assertSame(Charset charset, String timestamp, String randomString, String payload) throws Exception {
+        byte[] expected = payload(timestamp, randomString, payload).getBytes(charset);
+        SignData signData = SignData.of(charset, timestamp, randomString, SignData.trim(payload));
+        assertBytes(expected, signData);
+        Assertions.assertArrayEquals(expected, signData.toByteArray());
+
+        // 缓冲区重复使用, 第二次结果不受第一次影响
+        assertBytes(expected, signData);
+    }
+
+    private static void assertBytes(byte[] expected, SignData signData) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        signData.update(out::write);
+        Assertions.assertArrayEquals(expected, out.toByteArray());
+    }
+
+    /**
+     * 原来的签名数据拼接方式
+     */
+    private static String payload(String timestamp, String randomString, String payload) {
+        return timestamp + randomString + StringUtils.trimToEmpty(payload);
+    }
+}
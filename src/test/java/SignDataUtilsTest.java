@@ -0,0 +1,75 @@
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+import tech.aomi.cloud.gateway.filter.v1.SignDataUtils;
+import tech.aomi.common.constant.Common;
+
+import java.math.BigDecimal;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 响应签名数据与序列化 status、payload 对象的结果一致
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class SignDataUtilsTest {
+
+    @Test
+    public void entitySignText() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("name", "中文\"\n");
+        payload.put("amount", new BigDecimal("1.00"));
+        payload.put("empty", null);
+        payload.put("list", new Object[]{1, "a", null});
+
+        same("0000", payload);
+        same("0000", null);
+        same(null, payload);
+        same(null, null);
+        same("0\"1\\2中文\u0001", payload);
+        same("0000", "中文\" ");
+        same("0000", "");
+    }
+
+    @Test
+    public void signEntity() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("name", "中文");
+        byte[] legacy = SignDataUtils.getSignText(new Entity("0\"中文", payload));
+        String sign = SignDataUtils.signEntity(SignDataUtils.getSignText(payload), "0\"中文", keyPair.getPrivate());
+        Assertions.assertTrue(CryptoEngine.verify(Common.SIGN_ALGORITHMS, keyPair.getPublic(), legacy, Base64.getDecoder().decode(sign)));
+
+        legacy = SignDataUtils.getSignText(new Entity(null, null));
+        sign = SignDataUtils.signEntity(null, null, keyPair.getPrivate());
+        Assertions.assertTrue(CryptoEngine.verify(Common.SIGN_ALGORITHMS, keyPair.getPublic(), legacy, Base64.getDecoder().decode(sign)));
+    }
+
+    private void same(String status, Object payload) {
+        byte[] legacy = SignDataUtils.getSignText(new Entity(status, payload));
+        byte[] serialized = null == payload ? null : SignDataUtils.getSignText(payload);
+        Assertions.assertArrayEquals(legacy, SignDataUtils.entitySignText(serialized, status));
+    }
+
+    /**
+     * 原响应签名使用的对象
+     */
+    @Data
+    @AllArgsConstructor
+    private static class Entity implements java.io.Serializable {
+        private static final long serialVersionUID = 7997940947074948716L;
+
+        private String status;
+
+        private Object payload;
+    }
+}
@@ -0,0 +1,104 @@
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+import tech.aomi.cloud.gateway.crypto.CryptoScheduler;
+import tech.aomi.cloud.gateway.crypto.KeyCache;
+import tech.aomi.cloud.gateway.entity.Client;
+import tech.aomi.cloud.gateway.filter.v1.SignDataUtils;
+import tech.aomi.cloud.gateway.filter.v1.SignServerHttpResponse;
+import tech.aomi.common.constant.Common;
+import tech.aomi.common.constant.HttpHeader;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.ORIGINAL_RESPONSE_CONTENT_TYPE_ATTR;
+
+/**
+ * v1 签名响应的 payload 格式
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class SignServerHttpResponseTest {
+
+    private final KeyPair keyPair = keyPair();
+
+    /**
+     * 没有 null 字段时 payload 为签名数据中的字节, 字段按名称排序
+     */
+    @Test
+    public void signedPayload() throws Exception {
+        MockServerWebExchange exchange = write("{\"status\":\"0000\",\"payload\":{\"b\":2,\"a\":\"中文\"}}");
+
+        String body = exchange.getResponse().getBodyAsString().block();
+        Assertions.assertTrue(body.contains("\"payload\":{\"a\":\"中文\",\"b\":2}"), body);
+        verify(exchange, "{\"a\":\"中文\",\"b\":2}");
+    }
+
+    /**
+     * 有 null 字段时响应体保留 null 字段及原有顺序, 签名数据不包含 null 字段
+     */
+    @Test
+    public void nullField() throws Exception {
+        MockServerWebExchange exchange = write("{\"status\":\"0000\",\"payload\":{\"b\":{\"c\":null},\"a\":null}}");
+
+        String body = exchange.getResponse().getBodyAsString().block();
+        Assertions.assertTrue(body.contains("\"payload\":{\"b\":{\"c\":null},\"a\":null}"), body);
+        verify(exchange, "{\"b\":{}}");
+    }
+
+    private MockServerWebExchange write(String upstream) {
+        Client client = new Client();
+        client.setId("1");
+        client.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/"));
+        exchange.getAttributes().put("client", client);
+        exchange.getAttributes().put(ORIGINAL_RESPONSE_CONTENT_TYPE_ATTR, "application/json");
+        exchange.getResponse().setStatusCode(HttpStatus.OK);
+
+        CryptoScheduler cryptoScheduler = new CryptoScheduler(new GatewayProperties(), new SimpleMeterRegistry());
+        try {
+            SignServerHttpResponse response = new SignServerHttpResponse(
+                    exchange,
+                    ServerCodecConfigurer.create().getReaders(),
+                    Collections.emptySet(),
+                    Collections.emptySet(),
+                    new KeyCache(new GatewayProperties()),
+                    cryptoScheduler
+            );
+            response.writeWith(Mono.just(DefaultDataBufferFactory.sharedInstance.wrap(upstream.getBytes(StandardCharsets.UTF_8)))).block();
+        } finally {
+            cryptoScheduler.destroy();
+        }
+        return exchange;
+    }
+
+    private void verify(MockServerWebExchange exchange, String signedPayload) throws Exception {
+        byte[] signData = SignDataUtils.entitySignText(signedPayload.getBytes(StandardCharsets.UTF_8), "0000");
+        byte[] sign = Base64.getDecoder().decode(exchange.getResponse().getHeaders().getFirst(HttpHeader.SIGNATURE));
+        Assertions.assertTrue(CryptoEngine.verify(Common.SIGN_ALGORITHMS, keyPair.getPublic(), signData, sign));
+    }
+
+    private static KeyPair keyPair() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tech.aomi.cloud.gateway.constant.Common;
+import tech.aomi.cloud.gateway.crypto.CryptoEngine;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * 签名方式性能对比
+ * 输出每种签名方式单线程每秒签名、验签次数
+ * 默认不执行, 使用 gradle benchmark 运行
+ *
+ * @author Sean createAt 2026/10/18
+ */
+@Tag("benchmark")
+public class SignTypeBenchmarkTest {
+
+    private static final int WARMUP = 200;
+
+    private static final int ITERATIONS = 1000;
+
+    private static final byte[] DATA = ("2026-10-18 12:00:00.000" + "d7f0c1b2a3e4f5a6b7c8d9e0f1a2b3c4"
+            + "QUVTLUNCQy1lbmNyeXB0ZWQtcGF5bG9hZC1mb3ItYmVuY2htYXJraW5nLXNpZ25hdHVyZS1zdWl0ZXM=")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void test() throws GeneralSecurityException {
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(2048);
+        benchmark("RSA-2048 " + Common.RSA_SIGN_ALGORITHM, Common.RSA_SIGN_ALGORITHM, rsa.generateKeyPair());
+
+        KeyPairGenerator ed25519 = KeyPairGenerator.getInstance(Common.ED25519_SIGN_ALGORITHM);
+        benchmark("Ed25519", Common.ED25519_SIGN_ALGORITHM, ed25519.generateKeyPair());
+
+        KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+        ec.initialize(new ECGenParameterSpec("secp256r1"));
+        benchmark("ECDSA P-256", Common.ECDSA_P256_SIGN_ALGORITHM, ec.generateKeyPair());
+    }
+
+    private void benchmark(String name, String algorithm, KeyPair keyPair) throws GeneralSecurityException {
+        byte[] sign = null;
+        for (int i = 0; i < WARMUP; i++) {
+            sign = CryptoEngine.sign(algorithm, keyPair.getPrivate(), DATA);
+            CryptoEngine.verify(algorithm, keyPair.getPublic(), DATA, sign);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sign = CryptoEngine.sign(algorithm, keyPair.getPrivate(), DATA);
+        }
+        double signOps = ITERATIONS * 1e9 / (System.nanoTime() - start);
+
+        boolean isOk = true;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            isOk &= CryptoEngine.verify(algorithm, keyPair.getPublic(), DATA, sign);
+        }
+        double verifyOps = ITERATIONS * 1e9 / (System.nanoTime() - start);
+
+        Assertions.assertTrue(isOk);
+        System.out.printf("%-32s sign: %10.0f ops/s, verify: %10.0f ops/s%n", name, signOps, verifyOps);
+    }
+}
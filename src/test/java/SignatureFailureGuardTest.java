@@ -0,0 +1,139 @@
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.guard.SignatureFailureGuard;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名验证失败次数限制
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class SignatureFailureGuardTest {
+
+    @Test
+    public void unknownIp() {
+        SignatureFailureGuard guard = guard(2);
+        MockServerWebExchange unknown = MockServerWebExchange.from(MockServerHttpRequest.post("/"));
+
+        // 无法获取来源IP的请求不共用同一个计数
+        guard.recordFailure(unknown, "1");
+        guard.recordFailure(unknown, "2");
+        Assertions.assertFalse(guard.isBlocked(unknown));
+        Assertions.assertFalse(guard.isBlocked(unknown, "3"));
+        Assertions.assertTrue(guard.getBlocked().isEmpty());
+
+        guard.recordFailure(unknown, "1");
+        Assertions.assertTrue(guard.isBlocked(unknown, "1"));
+        Assertions.assertFalse(guard.isBlocked(unknown, "2"));
+    }
+
+    /**
+     * 默认不按来源IP统计, 经过同一个代理的其他客户端不受影响
+     */
+    @Test
+    public void ipDisabled() {
+        GatewayProperties properties = properties(2);
+        SignatureFailureGuard guard = new SignatureFailureGuard(properties, new SimpleMeterRegistry());
+
+        guard.recordFailure(exchange("10.0.0.1"), "1");
+        guard.recordFailure(exchange("10.0.0.1"), "1");
+        Assertions.assertTrue(guard.isBlocked(exchange("10.0.0.1"), "1"));
+        Assertions.assertFalse(guard.isBlocked(exchange("10.0.0.1")));
+        Assertions.assertFalse(guard.isBlocked(exchange("10.0.0.1"), "2"));
+    }
+
+    /**
+     * 经过可信代理时从 X-Forwarded-For 右侧取客户端地址, 客户端伪造的地址不使用
+     */
+    @Test
+    public void forwardedFor() {
+        GatewayProperties properties = properties(2);
+        properties.getSignatureFailure().getIp().setEnabled(true);
+        properties.getSignatureFailure().getIp().setTrustedProxies(2);
+        SignatureFailureGuard guard = new SignatureFailureGuard(properties, new SimpleMeterRegistry());
+
+        guard.recordFailure(forwarded("1.1.1.1, 203.0.113.1, 10.0.0.2"), "1");
+        guard.recordFailure(forwarded("2.2.2.2, 203.0.113.1, 10.0.0.3"), "2");
+        Assertions.assertEquals(1, guard.getBlocked().size());
+        Assertions.assertEquals("ip:203.0.113.1", guard.getBlocked().iterator().next().getKey());
+        Assertions.assertTrue(guard.isBlocked(forwarded("203.0.113.1, 10.0.0.2")));
+        Assertions.assertFalse(guard.isBlocked(forwarded("203.0.113.2, 10.0.0.2")));
+
+        // 地址数量少于可信代理层数时无法获取来源IP
+        Assertions.assertFalse(guard.isBlocked(forwarded("10.0.0.2")));
+        Assertions.assertFalse(guard.isBlocked(exchange("10.0.0.1")));
+    }
+
+    @Test
+    public void concurrent() throws Exception {
+        int threads = 8;
+        int times = 100;
+        SignatureFailureGuard guard = guard(threads * times);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String clientId = String.valueOf(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < times; j++) {
+                        guard.recordFailure(exchange("10.0.0.1"), clientId);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 并发记录的失败次数不丢失, 达到阈值后只限制一次
+        Assertions.assertTrue(guard.isBlocked(exchange("10.0.0.1")));
+        Assertions.assertFalse(guard.isBlocked(exchange("10.0.0.2")));
+        Assertions.assertEquals(1, guard.getBlocked().size());
+        Assertions.assertEquals(threads * times, guard.getBlocked().iterator().next().getFailures());
+    }
+
+    /**
+     * 按连接的来源地址统计
+     */
+    private static SignatureFailureGuard guard(int threshold) {
+        GatewayProperties properties = properties(threshold);
+        properties.getSignatureFailure().getIp().setEnabled(true);
+        return new SignatureFailureGuard(properties, new SimpleMeterRegistry());
+    }
+
+    private static GatewayProperties properties(int threshold) {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getSignatureFailure().setThreshold(threshold);
+        properties.getSignatureFailure().setWindow(Duration.ofHours(1));
+        return properties;
+    }
+
+    private static MockServerWebExchange exchange(String ip) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/").remoteAddress(new InetSocketAddress(ip, 8080)));
+    }
+
+    private static MockServerWebExchange forwarded(String forwardedFor) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/")
+                .remoteAddress(new InetSocketAddress("10.0.0.1", 8080))
+                .header("X-Forwarded-For", forwardedFor));
+    }
+}
@@ -0,0 +1,110 @@
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import tech.aomi.cloud.gateway.GatewayProperties;
+import tech.aomi.cloud.gateway.crypto.TrkCache;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 传输秘钥缓存只返回副本, 删除时清除明文
+ *
+ * @author Sean createAt 2026/10/18
+ */
+public class TrkCacheTest {
+
+    private static final byte[] CIPHERTEXT = {1, 2, 3};
+
+    @Test
+    public void evict() throws Exception {
+        TrkCache trkCache = trkCache(new GatewayProperties(), Ticker.systemTicker());
+        byte[] plaintext = key();
+        byte[] expected = plaintext.clone();
+        AtomicInteger decrypted = new AtomicInteger();
+        TrkCache.Decryptor decryptor = ciphertext -> {
+            decrypted.incrementAndGet();
+            return plaintext;
+        };
+
+        byte[] trk = trkCache.get("1", CIPHERTEXT, decryptor);
+        Assertions.assertNotSame(plaintext, trk);
+        Assertions.assertArrayEquals(expected, trk);
+        // 修改副本不影响缓存
+        trk[0]++;
+        Assertions.assertArrayEquals(expected, trkCache.get("1", CIPHERTEXT, decryptor));
+        Assertions.assertEquals(1, decrypted.get());
+
+        trkCache.evict("1");
+        Assertions.assertArrayEquals(new byte[plaintext.length], plaintext);
+    }
+
+    @Test
+    public void expire() throws Exception {
+        GatewayProperties properties = new GatewayProperties();
+        properties.getTrkCache().setTtl(Duration.ofMillis(50));
+        AtomicLong nanos = new AtomicLong();
+        TrkCache trkCache = trkCache(properties, nanos::get);
+        byte[] plaintext = key();
+        byte[] expected = plaintext.clone();
+
+        Assertions.assertArrayEquals(expected, trkCache.get("1", CIPHERTEXT, ciphertext -> plaintext));
+
+        nanos.addAndGet(Duration.ofMillis(100).toNanos());
+        byte[] next = key();
+        Assertions.assertArrayEquals(next, trkCache.get("1", CIPHERTEXT, ciphertext -> next));
+        Assertions.assertArrayEquals(new byte[plaintext.length], plaintext);
+    }
+
+    /**
+     * 读取与删除并发执行时不会得到已清除的秘钥
+     */
+    @Test
+    public void concurrent() throws Exception {
+        TrkCache trkCache = trkCache(new GatewayProperties(), Ticker.systemTicker());
+        byte[] expected = key();
+        TrkCache.Decryptor decryptor = ciphertext -> expected.clone();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 2000; j++) {
+                        Assertions.assertArrayEquals(expected, trkCache.get("1", CIPHERTEXT, decryptor));
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < 2000; i++) {
+                trkCache.evict("1");
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 删除监听器在调用线程中执行
+     */
+    private TrkCache trkCache(GatewayProperties properties, Ticker ticker) {
+        return new TrkCache(properties, new SimpleMeterRegistry(), ticker, Runnable::run);
+    }
+
+    private static byte[] key() {
+        byte[] key = new byte[16];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+}